@@ -0,0 +1,56 @@
+package com.example.shop.model;
+
+import com.example.shop.util.Strings;
+
+public class Customer {
+
+    private final String email;
+    private final String name;
+    private final Address address;
+
+    public Customer(String email, String name, Address address) {
+        this.email = Strings.normalize(email);
+        this.name = name;
+        this.address = address;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public static class Address {
+
+        private final String street;
+        private final String city;
+        private final String country;
+
+        public Address(String street, String city, String country) {
+            this.street = street;
+            this.city = city;
+            this.country = country;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        @Override
+        public String toString() {
+            return Strings.join(", ", street, city, country);
+        }
+
+    }
+
+}
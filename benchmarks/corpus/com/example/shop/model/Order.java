@@ -0,0 +1,88 @@
+package com.example.shop.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Order {
+
+    private final long id;
+    private final Customer customer;
+    private final List<Line> lines = new ArrayList<>();
+    private final LocalDateTime created = LocalDateTime.now();
+    private Status status = Status.NEW;
+
+    public Order(long id, Customer customer) {
+        this.id = id;
+        this.customer = customer;
+    }
+
+    public Line add(Product product, int quantity) {
+        Line line = new Line(product, quantity);
+        lines.add(line);
+        return line;
+    }
+
+    public BigDecimal getTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Line line : lines) {
+            total = total.add(line.getAmount());
+        }
+        return total;
+    }
+
+    public List<Line> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public enum Status {
+        NEW, PAID, SHIPPED, CANCELLED
+    }
+
+    public static class Line {
+
+        private final Product product;
+        private final int quantity;
+
+        Line(Product product, int quantity) {
+            this.product = product;
+            this.quantity = quantity;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getAmount() {
+            return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.example.shop.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public class Product implements Comparable<Product> {
+
+    private final String sku;
+    private final String name;
+    private final BigDecimal price;
+    private final Category category;
+
+    public Product(String sku, String name, BigDecimal price, Category category) {
+        this.sku = Objects.requireNonNull(sku);
+        this.name = name;
+        this.price = price;
+        this.category = category;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public Product withPrice(BigDecimal newPrice) {
+        return new Product(sku, name, newPrice, category);
+    }
+
+    @Override
+    public int compareTo(Product other) {
+        return sku.compareTo(other.getSku());
+    }
+
+    public enum Category {
+        BOOKS, MUSIC, TOOLS;
+
+        public boolean isTaxed() {
+            return this != BOOKS;
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.example.shop.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryRepository<K, V> implements Repository<K, V> {
+
+    private final Map<K, V> values = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<V> find(K key) {
+        return Optional.ofNullable(values.get(key));
+    }
+
+    @Override
+    public void save(K key, V value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public Collection<V> findAll() {
+        return values.values();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+}
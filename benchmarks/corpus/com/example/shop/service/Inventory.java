@@ -0,0 +1,40 @@
+package com.example.shop.service;
+
+import com.example.shop.model.Product;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class Inventory {
+
+    private final Map<String, Integer> stock = new HashMap<>();
+    private final Repository<String, Product> products;
+
+    public Inventory(Repository<String, Product> products) {
+        this.products = products;
+    }
+
+    public void receive(Product product, int quantity) {
+        products.save(product.getSku(), product);
+        stock.merge(product.getSku(), quantity, Integer::sum);
+    }
+
+    public boolean reserve(Product product, int quantity) {
+        int available = stock.getOrDefault(product.getSku(), 0);
+        if (available < quantity) {
+            return false;
+        }
+        stock.put(product.getSku(), available - quantity);
+        return true;
+    }
+
+    public Map<Product.Category, Integer> countByCategory() {
+        Map<Product.Category, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : stock.entrySet()) {
+            products.find(entry.getKey())
+                    .ifPresent(product -> counts.merge(product.getCategory(), entry.getValue(), Integer::sum));
+        }
+        return counts;
+    }
+
+}
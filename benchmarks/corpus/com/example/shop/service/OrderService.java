@@ -0,0 +1,64 @@
+package com.example.shop.service;
+
+import com.example.shop.model.Customer;
+import com.example.shop.model.Order;
+import com.example.shop.model.Product;
+import com.example.shop.util.Strings;
+import org.example.missing.AuditLog;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+public class OrderService {
+
+    private final AtomicLong ids = new AtomicLong();
+    private final Repository<Long, Order> orders = new InMemoryRepository<>();
+    private final Inventory inventory;
+    private final AuditLog auditLog;
+
+    public OrderService(Inventory inventory, AuditLog auditLog) {
+        this.inventory = inventory;
+        this.auditLog = auditLog;
+    }
+
+    public Order place(Customer customer, List<Product> products) {
+        Order order = new Order(ids.incrementAndGet(), customer);
+        for (Product product : products) {
+            if (inventory.reserve(product, 1)) {
+                Order.Line line = order.add(product, 1);
+                auditLog.record("reserved", line.getProduct().getSku());
+            }
+        }
+        orders.save(order.getId(), order);
+        AuditLog.flush();
+        return order;
+    }
+
+    public void pay(long id) {
+        orders.find(id).ifPresent(order -> order.setStatus(Order.Status.PAID));
+    }
+
+    public List<Order> findLargest(int limit) {
+        return orders.findAll().stream()
+                .sorted(Comparator.comparing(Order::getTotal).reversed())
+                .limit(limit)
+                .collect(toList());
+    }
+
+    public BigDecimal revenue(String country) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Order order : orders.findAll()) {
+            Customer.Address address = order.getCustomer().getAddress();
+            if (order.getStatus() == Order.Status.PAID && !Strings.isBlank(country)
+                    && country.equals(address.getCountry())) {
+                total = total.add(order.getTotal());
+            }
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.example.shop.service;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface Repository<K, V> {
+
+    Optional<V> find(K key);
+
+    void save(K key, V value);
+
+    Collection<V> findAll();
+
+}
@@ -0,0 +1,32 @@
+package com.example.shop.util;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+public final class Strings {
+
+    private Strings() {
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String join(String separator, String... parts) {
+        StringJoiner joiner = new StringJoiner(separator);
+        for (String part : parts) {
+            if (!isBlank(part)) {
+                joiner.add(part);
+            }
+        }
+        return joiner.toString();
+    }
+
+    public static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.apixandru.java.benchmarks;
+
+import com.apixandru.java.main.CompilationUnitCallable;
+import com.apixandru.java.main.SourceFiles;
+import com.apixandru.java.visitors.DelegatingSymbolResolver;
+import com.apixandru.java.visitors.MissingSymbols;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserStuffImpl;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PerThreadTypeSolvers;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeSolverCacheConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The sources the benchmarks run against, {@code corpus} in the benchmarks directory unless told otherwise.
+ */
+final class BenchmarkCorpus {
+
+    private BenchmarkCorpus() {
+    }
+
+    static List<Path> find(String corpus) {
+        Path root = Paths.get(corpus);
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("No corpus in " + root.toAbsolutePath());
+        }
+        return SourceFiles.find(List.of(root));
+    }
+
+    static List<CompilationUnit> parse(List<Path> files) {
+        return files.stream()
+                .map(file -> new CompilationUnitCallable(file).call())
+                .collect(toList());
+    }
+
+    /**
+     * Parses the files and sets them up for resolution from scratch, nothing being cached yet.
+     */
+    static List<CompilationUnit> parseForResolution(List<Path> files) {
+        List<CompilationUnit> compilationUnits = parse(files);
+        setUpResolution(compilationUnits);
+        return compilationUnits;
+    }
+
+    /**
+     * @return the solvers the units resolve with, one per thread, whose caches are all empty
+     */
+    static PerThreadTypeSolvers setUpResolution(List<CompilationUnit> compilationUnits) {
+        MissingSymbols.INSTANCE.forgetMissing();
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(new JavaParserStuffImpl(compilationUnits), TypeSolverCacheConfig.UNBOUNDED);
+        DelegatingSymbolResolver dsr = new DelegatingSymbolResolver();
+        dsr.setSr(typeSolvers::get);
+        compilationUnits.forEach(dsr::inject);
+        return typeSolvers;
+    }
+
+}
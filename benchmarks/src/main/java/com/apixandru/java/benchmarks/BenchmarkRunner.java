@@ -0,0 +1,45 @@
+package com.apixandru.java.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the benchmarks selected on the command line, the same options as the regular JMH main, and keeps the results
+ * as JSON in {@code results} so runs can be compared later on, unless told otherwise with {@code -rf} or {@code -rff}.
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULTS_DIR = "results";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.getResult().hasValue() || commandLineOptions.getResultFormat().hasValue()) {
+            new Runner(commandLineOptions).run();
+            return;
+        }
+        File resultsDir = new File(RESULTS_DIR);
+        if (!resultsDir.isDirectory() && !resultsDir.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + resultsDir);
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Options options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(resultsDir, "jmh-" + timestamp + ".json").getPath())
+                .build();
+        new Runner(options).run();
+    }
+
+}
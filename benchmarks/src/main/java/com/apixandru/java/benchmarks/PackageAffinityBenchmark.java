@@ -0,0 +1,138 @@
+package com.apixandru.java.benchmarks;
+
+import com.apixandru.java.main.MainDataCollectorMultiThreadded;
+import com.apixandru.java.main.PackageAffinityExecutor;
+import com.apixandru.java.main.PipelineStage;
+import com.apixandru.java.visitors.ExtractionContext;
+import com.apixandru.java.visitors.ExtractionEngine;
+import com.apixandru.util.DiscardingRowWriterFactory;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PerThreadTypeSolvers;
+import com.google.common.cache.CacheStats;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.apixandru.java.visitors.JpUtils.findPath;
+
+/**
+ * Reports every file of the corpus on as many threads as there are cores, with the rows discarded, either on a fixed
+ * thread pool, which hands files to whichever thread is free, or on a {@link PackageAffinityExecutor}, which keeps the
+ * files of a package on the same thread. Along with the time, the hit rate of the caches of the type solvers is
+ * reported. The corpus is parsed again before every invocation, outside of the measurement, so each one starts with
+ * empty caches just like a collector run does. Files are reported whole, the parts
+ * {@link com.apixandru.java.visitors.SplitExtraction} would run apart bypass the affinity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackageAffinityBenchmark {
+
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    @Param("corpus")
+    public String corpus;
+
+    @Param({"fixed", "affinity"})
+    public String scheduler;
+
+    private List<Path> files;
+    private ExecutorService fixedPool;
+    private PackageAffinityExecutor affinityExecutor;
+    private List<CompilationUnit> compilationUnits;
+    private PerThreadTypeSolvers typeSolvers;
+
+    @Setup(Level.Trial)
+    public void start() {
+        files = BenchmarkCorpus.find(corpus);
+        int threads = Runtime.getRuntime().availableProcessors();
+        if ("affinity".equals(scheduler)) {
+            affinityExecutor = new PackageAffinityExecutor("affinity", threads);
+        } else {
+            fixedPool = Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() {
+        compilationUnits = BenchmarkCorpus.parse(files);
+        typeSolvers = BenchmarkCorpus.setUpResolution(compilationUnits);
+    }
+
+    @Benchmark
+    public void report(CacheCounters counters) {
+        PipelineStage<CompilationUnit> reportStage = affinityExecutor != null
+                ? new PipelineStage<>("report", affinityExecutor, MAX_IN_FLIGHT)
+                : new PipelineStage<>("report", fixedPool, MAX_IN_FLIGHT);
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            Path path = findPath(compilationUnit);
+            String affinity = affinityExecutor != null ? MainDataCollectorMultiThreadded.getPackageAffinity(path) : null;
+            reportStage.submit(path.toString(), affinity, () -> report(compilationUnit));
+        }
+        reportStage.close();
+        reportStage.drain();
+        for (CacheStats stats : typeSolvers.getCacheStats().values()) {
+            counters.cacheHits += stats.hitCount();
+            counters.cacheRequests += stats.requestCount();
+        }
+    }
+
+    private static CompilationUnit report(CompilationUnit compilationUnit) {
+        try (ExtractionContext context = new ExtractionContext(findPath(compilationUnit).toFile(), DiscardingRowWriterFactory.INSTANCE)) {
+            ExtractionEngine.INSTANCE.run(compilationUnit, context);
+        }
+        return compilationUnit;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (affinityExecutor != null) {
+            affinityExecutor.close();
+        } else {
+            fixedPool.shutdown();
+        }
+    }
+
+    /**
+     * The lookups of the type solvers of every invocation of an iteration, counted anew for each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheCounters {
+
+        public long cacheHits;
+        public long cacheRequests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            cacheHits = 0;
+            cacheRequests = 0;
+        }
+
+        public double cacheHitRate() {
+            return cacheRequests == 0 ? 0 : (double) cacheHits / cacheRequests;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.apixandru.java.benchmarks;
+
+import com.apixandru.java.main.CompilationUnitCallable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the whole corpus, reading the files included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param("corpus")
+    public String corpus;
+
+    private List<Path> files;
+
+    @Setup
+    public void findFiles() {
+        files = BenchmarkCorpus.find(corpus);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (Path file : files) {
+            blackhole.consume(new CompilationUnitCallable(file).call());
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.apixandru.java.benchmarks;
+
+import com.apixandru.java.visitors.ExtractionContext;
+import com.apixandru.java.visitors.ExtractionEngine;
+import com.apixandru.util.AsyncCsvRowWriterFactory;
+import com.apixandru.util.ColumnarRowWriterFactory;
+import com.apixandru.util.CsvRowWriterFactory;
+import com.apixandru.util.Durability;
+import com.apixandru.util.RowWriter;
+import com.apixandru.util.RowWriterFactory;
+import com.apixandru.util.ShardedCsvRowWriterFactory;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.apixandru.java.visitors.JpUtils.findPath;
+
+/**
+ * Writes the reports of the corpus with each of the writer factories of the collector. The rows are produced once,
+ * by a regular extraction, and replayed into a fresh directory every iteration so that only the writing is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportWritingBenchmark {
+
+    private static final int SHARDS = 4;
+    private static final int FLUSH_THRESHOLD = 1 << 20;
+
+    @Param("corpus")
+    public String corpus;
+
+    @Param({"csv", "csv-per-row", "async", "columnar", "sharded"})
+    public String writer;
+
+    private final List<RecordedReport> reports = new ArrayList<>();
+
+    private Path targetDir;
+
+    @Setup(Level.Trial)
+    public void record() {
+        Path root = Path.of(corpus).toAbsolutePath();
+        RecordingRowWriterFactory recorder = new RecordingRowWriterFactory(root, reports);
+        for (CompilationUnit compilationUnit : BenchmarkCorpus.parseForResolution(BenchmarkCorpus.find(corpus))) {
+            try (ExtractionContext context = new ExtractionContext(findPath(compilationUnit).toFile(), recorder)) {
+                ExtractionEngine.INSTANCE.run(compilationUnit, context);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createTargetDir() throws IOException {
+        targetDir = Files.createTempDirectory("report-writing-");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteTargetDir() throws IOException {
+        try (Stream<Path> paths = Files.walk(targetDir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        RowWriterFactory writerFactory = createWriterFactory();
+        for (RecordedReport report : reports) {
+            try (RowWriter rowWriter = writerFactory.open(targetDir.resolve(report.relativePath).toFile(), report.name, report.header)) {
+                report.rows.forEach(rowWriter::write);
+            }
+        }
+        if (writerFactory instanceof Closeable) {
+            ((Closeable) writerFactory).close();
+        }
+    }
+
+    private RowWriterFactory createWriterFactory() {
+        switch (writer) {
+            case "csv":
+                return CsvRowWriterFactory.BATCHED;
+            case "csv-per-row":
+                return CsvRowWriterFactory.PER_ROW;
+            case "async":
+                return new AsyncCsvRowWriterFactory(Durability.BATCHED, FLUSH_THRESHOLD);
+            case "columnar":
+                return new ColumnarRowWriterFactory(targetDir.toString());
+            case "sharded":
+                return new ShardedCsvRowWriterFactory(targetDir.toString(), SHARDS, Durability.BATCHED);
+            default:
+                throw new IllegalArgumentException("Unknown writer " + writer);
+        }
+    }
+
+    private static final class RecordedReport {
+
+        private final String relativePath;
+        private final String name;
+        private final List<Object> header;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        RecordedReport(String relativePath, String name, List<Object> header) {
+            this.relativePath = relativePath;
+            this.name = name;
+            this.header = header;
+        }
+
+    }
+
+    private static final class RecordingRowWriterFactory implements RowWriterFactory {
+
+        private final Path root;
+        private final List<RecordedReport> reports;
+
+        RecordingRowWriterFactory(Path root, List<RecordedReport> reports) {
+            this.root = root;
+            this.reports = reports;
+        }
+
+        @Override
+        public RowWriter open(File fakeOutput, String name, List<Object> header) {
+            RecordedReport report = new RecordedReport(root.relativize(fakeOutput.toPath().toAbsolutePath()).toString(), name, header);
+            reports.add(report);
+            return new RowWriter() {
+                @Override
+                public void write(Object[] row) {
+                    report.rows.add(row.clone());
+                }
+
+                @Override
+                public void close() {
+                    // kept for replaying
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.apixandru.java.benchmarks;
+
+import com.apixandru.java.visitors.SymbolsExtractVisitor;
+import com.apixandru.java.visitors.TypesCsvReport;
+import com.apixandru.util.DiscardingRowWriterFactory;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.apixandru.java.visitors.JpUtils.findPath;
+
+/**
+ * Resolves every type reference of the corpus the way the types report does, with the rows discarded. The corpus is
+ * parsed again before every invocation, outside of the measurement, so each one starts with empty caches just like
+ * a collector run does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeResolutionBenchmark {
+
+    @Param("corpus")
+    public String corpus;
+
+    private List<Path> files;
+    private List<CompilationUnit> compilationUnits;
+
+    @Setup(Level.Trial)
+    public void findFiles() {
+        files = BenchmarkCorpus.find(corpus);
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() {
+        compilationUnits = BenchmarkCorpus.parseForResolution(files);
+    }
+
+    @Benchmark
+    public void resolveTypes() {
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            try (TypesCsvReport report = new TypesCsvReport(findPath(compilationUnit).toFile(), DiscardingRowWriterFactory.INSTANCE)) {
+                compilationUnit.accept(SymbolsExtractVisitor.INSTANCE, report);
+            }
+        }
+    }
+
+}
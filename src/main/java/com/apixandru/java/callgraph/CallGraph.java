@@ -0,0 +1,282 @@
+package com.apixandru.java.callgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Who calls whom, every method numbered by its place among the sorted signatures. The callees of method {@code id}
+ * are {@code callees[calleeOffsets[id]]} up to {@code callees[calleeOffsets[id + 1]]}, sorted, and the callers are
+ * kept the same way. Transitive queries walk these arrays breadth first and never allocate per method.
+ * <p>
+ * Saved files hold the signatures front coded, each one as the length it shares with the previous one followed by
+ * the rest, and only the callees, as gaps between sorted ids. The callers are rebuilt when loading.
+ */
+public final class CallGraph {
+
+    private static final int MAGIC = 0x4A4D4347; // JMCG
+    private static final int VERSION = 1;
+
+    private final String[] signatures;
+    private final int[] calleeOffsets;
+    private final int[] callees;
+    private final int[] callerOffsets;
+    private final int[] callers;
+
+    CallGraph(String[] signatures, int[] calleeOffsets, int[] callees) {
+        this.signatures = signatures;
+        this.calleeOffsets = calleeOffsets;
+        this.callees = callees;
+        this.callerOffsets = new int[signatures.length + 1];
+        this.callers = new int[callees.length];
+
+        for (int callee : callees) {
+            callerOffsets[callee + 1]++;
+        }
+        for (int i = 0; i < signatures.length; i++) {
+            callerOffsets[i + 1] += callerOffsets[i];
+        }
+        // callers come in increasing order, so every list of callers ends up sorted
+        int[] next = Arrays.copyOf(callerOffsets, signatures.length);
+        for (int caller = 0; caller < signatures.length; caller++) {
+            for (int i = calleeOffsets[caller]; i < calleeOffsets[caller + 1]; i++) {
+                callers[next[callees[i]]++] = caller;
+            }
+        }
+    }
+
+    public int size() {
+        return signatures.length;
+    }
+
+    public int getEdgeCount() {
+        return callees.length;
+    }
+
+    public OptionalInt findId(String signature) {
+        int id = Arrays.binarySearch(signatures, signature);
+        return id >= 0 ? OptionalInt.of(id) : OptionalInt.empty();
+    }
+
+    /**
+     * The methods whose signature starts with the prefix, every overload of {@code java.util.Map.put(} for instance.
+     */
+    public int[] findByPrefix(String prefix) {
+        int from = Arrays.binarySearch(signatures, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < signatures.length && signatures[to].startsWith(prefix)) {
+            to++;
+        }
+        int[] ids = new int[to - from];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = from + i;
+        }
+        return ids;
+    }
+
+    public String getSignature(int id) {
+        return signatures[id];
+    }
+
+    public int[] getCallees(int id) {
+        return Arrays.copyOfRange(callees, calleeOffsets[id], calleeOffsets[id + 1]);
+    }
+
+    public int[] getCallers(int id) {
+        return Arrays.copyOfRange(callers, callerOffsets[id], callerOffsets[id + 1]);
+    }
+
+    /**
+     * Every method that ends up calling the method, the method itself only when it is part of a cycle.
+     */
+    public BitSet getTransitiveCallers(int id) {
+        return traverse(id, callerOffsets, callers, -1);
+    }
+
+    /**
+     * Every method the method ends up calling, the method itself only when it is part of a cycle.
+     */
+    public BitSet getReachable(int id) {
+        return traverse(id, calleeOffsets, callees, -1);
+    }
+
+    public boolean isReachable(int from, int to) {
+        return traverse(from, calleeOffsets, callees, to).get(to);
+    }
+
+    private BitSet traverse(int start, int[] offsets, int[] targets, int stopAt) {
+        BitSet visited = new BitSet(signatures.length);
+        int[] queue = new int[signatures.length];
+        int head = 0;
+        int tail = 0;
+        int current = start;
+        while (true) {
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int target = targets[i];
+                if (!visited.get(target)) {
+                    visited.set(target);
+                    if (target == stopAt) {
+                        return visited;
+                    }
+                    queue[tail++] = target;
+                }
+            }
+            if (head == tail) {
+                return visited;
+            }
+            current = queue[head++];
+        }
+    }
+
+    public List<String> getSignatures(BitSet ids) {
+        List<String> found = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            found.add(signatures[id]);
+        }
+        return found;
+    }
+
+    public List<String> getSignatures(int[] ids) {
+        List<String> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            found.add(signatures[id]);
+        }
+        return found;
+    }
+
+    public void save(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot save call graph " + file, ex);
+        }
+    }
+
+    /**
+     * Saves the graph and reads it back, failing when what was read is not what was saved.
+     */
+    public void saveAndVerify(Path file) {
+        save(file);
+        if (!hasSameCalls(load(file))) {
+            throw new IllegalStateException(file + " does not read back as the call graph that was saved");
+        }
+    }
+
+    boolean hasSameCalls(CallGraph other) {
+        return Arrays.equals(signatures, other.signatures)
+                && Arrays.equals(calleeOffsets, other.calleeOffsets)
+                && Arrays.equals(callees, other.callees)
+                && Arrays.equals(callerOffsets, other.callerOffsets)
+                && Arrays.equals(callers, other.callers);
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(signatures.length);
+        out.writeInt(callees.length);
+
+        byte[] previous = new byte[0];
+        for (String signature : signatures) {
+            byte[] bytes = signature.getBytes(UTF_8);
+            int shared = 0;
+            int max = Math.min(previous.length, bytes.length);
+            while (shared < max && previous[shared] == bytes[shared]) {
+                shared++;
+            }
+            writeVarInt(out, shared);
+            writeVarInt(out, bytes.length - shared);
+            out.write(bytes, shared, bytes.length - shared);
+            previous = bytes;
+        }
+
+        for (int caller = 0; caller < signatures.length; caller++) {
+            writeVarInt(out, calleeOffsets[caller + 1] - calleeOffsets[caller]);
+            int last = 0;
+            for (int i = calleeOffsets[caller]; i < calleeOffsets[caller + 1]; i++) {
+                writeVarInt(out, callees[i] - last);
+                last = callees[i];
+            }
+        }
+    }
+
+    public static CallGraph load(Path file) {
+        try {
+            // read rather than mapped, a mapped file cannot be replaced on Windows until the mapping is collected
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalStateException(file + " is not a call graph of this version");
+            }
+            String[] signatures = new String[buffer.getInt()];
+            int[] callees = new int[buffer.getInt()];
+
+            byte[] previous = new byte[0];
+            for (int i = 0; i < signatures.length; i++) {
+                int shared = readVarInt(buffer);
+                byte[] bytes = Arrays.copyOf(previous, shared + readVarInt(buffer));
+                buffer.get(bytes, shared, bytes.length - shared);
+                signatures[i] = new String(bytes, UTF_8);
+                previous = bytes;
+            }
+
+            int[] calleeOffsets = new int[signatures.length + 1];
+            int count = 0;
+            for (int caller = 0; caller < signatures.length; caller++) {
+                int degree = readVarInt(buffer);
+                int last = 0;
+                for (int i = 0; i < degree; i++) {
+                    last += readVarInt(buffer);
+                    callees[count++] = last;
+                }
+                calleeOffsets[caller + 1] = count;
+            }
+            return new CallGraph(signatures, calleeOffsets, callees);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot load call graph " + file, ex);
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalStateException(file + " is truncated", ex);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.apixandru.java.callgraph;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the resolved calls of a run, from any number of threads, into a {@link CallGraph}. Methods are named by
+ * their qualified signature, {@code java.util.Map.put(K, V)} for instance, the same way whether they are the caller
+ * or the callee.
+ * <p>
+ * The caller is the method or constructor the call is written in, calls in lambdas and anonymous classes included.
+ * Calls in initializers are made by {@code <clinit>()} or {@code <init>()} of their type.
+ * <p>
+ * Every thread adds its calls to a buffer of its own, the buffers are only put together by {@link #build()}.
+ */
+public class CallGraphBuilder {
+
+    private static final DataKey<String> SIGNATURE = new DataKey<>() {
+    };
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> signatures = new ArrayList<>();
+
+    private final List<Edges> buffers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Edges> edges = ThreadLocal.withInitial(this::newBuffer);
+
+    public void addCall(Node call, ResolvedMethodDeclaration callee) {
+        int caller = intern(findCaller(call));
+        int target = intern(callee.getQualifiedSignature());
+        edges.get().add(pack(caller, target));
+    }
+
+    private Edges newBuffer() {
+        Edges buffer = new Edges();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private int intern(String signature) {
+        Integer id = ids.get(signature);
+        if (id != null) {
+            return id;
+        }
+        synchronized (signatures) {
+            return ids.computeIfAbsent(signature, key -> {
+                signatures.add(key);
+                return signatures.size() - 1;
+            });
+        }
+    }
+
+    static long pack(int from, int to) {
+        return (long) from << 32 | to;
+    }
+
+    static String findCaller(Node call) {
+        Optional<CallableDeclaration> callable = call.findAncestor(CallableDeclaration.class);
+        if (callable.isPresent()) {
+            return getSignature(callable.get());
+        }
+        String owner = getOwner(call);
+        boolean isStatic = call.findAncestor(InitializerDeclaration.class)
+                .map(InitializerDeclaration::isStatic)
+                .or(() -> call.findAncestor(FieldDeclaration.class).map(FieldDeclaration::isStatic))
+                .orElse(false);
+        return owner + (isStatic ? ".<clinit>()" : ".<init>()");
+    }
+
+    /**
+     * Resolved once per declaration. A declaration whose parameters do not resolve is named by its unqualified
+     * signature, which only matches itself.
+     */
+    private static String getSignature(CallableDeclaration<?> callable) {
+        synchronized (callable) {
+            if (!callable.containsData(SIGNATURE)) {
+                callable.setData(SIGNATURE, resolveSignature(callable));
+            }
+            return callable.getData(SIGNATURE);
+        }
+    }
+
+    private static String resolveSignature(CallableDeclaration<?> callable) {
+        try {
+            if (callable instanceof MethodDeclaration) {
+                return ((MethodDeclaration) callable).resolve().getQualifiedSignature();
+            }
+            if (callable instanceof ConstructorDeclaration) {
+                return ((ConstructorDeclaration) callable).resolve().getQualifiedSignature();
+            }
+        } catch (RuntimeException ex) {
+            // unresolvable parameters
+        }
+        return getOwner(callable) + "." + callable.getSignature().asString();
+    }
+
+    /**
+     * The innermost type around the node that has a name, local classes are skipped along with anonymous ones.
+     */
+    private static String getOwner(Node node) {
+        Optional<TypeDeclaration> type = node.findAncestor(TypeDeclaration.class);
+        while (type.isPresent()) {
+            Optional<String> name = type.get().getFullyQualifiedName();
+            if (name.isPresent()) {
+                return name.get();
+            }
+            type = type.get().findAncestor(TypeDeclaration.class);
+        }
+        return "?";
+    }
+
+    /**
+     * Meant to be called once every call was added, by a thread that waited for the threads that added them. Call
+     * sites of the same method from the same method make a single edge.
+     */
+    public CallGraph build() {
+        String[] interned;
+        synchronized (signatures) {
+            interned = signatures.toArray(new String[0]);
+        }
+        int total = 0;
+        for (Edges buffer : buffers) {
+            total += buffer.count;
+        }
+        long[] calls = new long[total];
+        int filled = 0;
+        for (Edges buffer : buffers) {
+            System.arraycopy(buffer.edges, 0, calls, filled, buffer.count);
+            filled += buffer.count;
+        }
+
+        // ids were handed out in the order the methods were met, the graph numbers them by signature
+        Integer[] order = new Integer[interned.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(id -> interned[id]));
+        String[] sorted = new String[order.length];
+        int[] renumbered = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = interned[order[i]];
+            renumbered[order[i]] = i;
+        }
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = pack(renumbered[(int) (calls[i] >>> 32)], renumbered[(int) calls[i]]);
+        }
+        Arrays.sort(calls);
+
+        int[] offsets = new int[sorted.length + 1];
+        int[] targets = new int[calls.length];
+        int count = 0;
+        for (int i = 0; i < calls.length; i++) {
+            if (i > 0 && calls[i] == calls[i - 1]) {
+                continue;
+            }
+            offsets[(int) (calls[i] >>> 32) + 1]++;
+            targets[count++] = (int) calls[i];
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        return new CallGraph(sorted, offsets, Arrays.copyOf(targets, count));
+    }
+
+    /**
+     * The calls added by one thread, packed caller first.
+     */
+    private static final class Edges {
+
+        private long[] edges = new long[1024];
+        private int count;
+
+        void add(long edge) {
+            if (count == edges.length) {
+                edges = Arrays.copyOf(edges, count * 2);
+            }
+            edges[count++] = edge;
+        }
+
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.apixandru.java.main;
+
+import java.util.concurrent.Executor;
+
+/**
+ * An executor told which tasks are better run on the same thread, the files of the same package for instance.
+ */
+public interface AffinityExecutor extends Executor {
+
+    void execute(String affinity, Runnable task);
+
+}
@@ -0,0 +1,57 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.visitors.SplitExtraction;
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Collects several libraries one after the other in the same JVM, {@code commons-io hotspot --lazy} for instance.
+ * Arguments that are not options are library names or Maven coordinates, as {@link Libraries#getLibrary} knows them,
+ * and the options are the ones {@link MainDataCollectorMultiThreadded} takes.
+ * <p>
+ * The libraries depended on are modelled once for the whole batch, and the threads resolving against them are
+ * kept, so fifty libraries built on the JDK only pay for warming the JDK up once. That includes the report threads of
+ * {@code --package-affinity}.
+ */
+public class BatchCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchCollector.class);
+
+    public static void main(String[] args) {
+        String analysisRoot = "C:/_/workdir/analysis/";
+        List<String> options = Arrays.asList(args);
+        List<Library> libraries = options.stream()
+                .filter(arg -> !arg.startsWith("--"))
+                .map(Libraries::getLibrary)
+                .collect(toList());
+
+        long start = System.currentTimeMillis();
+        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        Executor reportExecutor = MainDataCollectorMultiThreadded.createReportExecutor(options, executorService);
+        SplitExtraction extraction = MainDataCollectorMultiThreadded.createSplitExtraction();
+        LibraryModels models = new LibraryModels(analysisRoot);
+        for (Library library : libraries) {
+            long libraryStart = System.currentTimeMillis();
+            MainDataCollectorMultiThreadded.collect(library, analysisRoot, options, models, executorService, reportExecutor,
+                    extraction);
+            log.info("Collected {} in {}", library.getKey(),
+                    DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - libraryStart));
+        }
+        models.logStats();
+        models.close();
+        MainDataCollectorMultiThreadded.shutdown(reportExecutor, extraction, executorService);
+
+        log.info("Took {} for {} libraries", DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start),
+                libraries.size());
+    }
+
+}
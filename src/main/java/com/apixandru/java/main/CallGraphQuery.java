@@ -0,0 +1,97 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.callgraph.CallGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Answers a question about a saved {@link CallGraph}, one of
+ * <pre>
+ * callers            &lt;graph&gt; &lt;method&gt;
+ * callees            &lt;graph&gt; &lt;method&gt;
+ * transitive-callers &lt;graph&gt; &lt;method&gt;
+ * reachable          &lt;graph&gt; &lt;method&gt;
+ * reaches            &lt;graph&gt; &lt;method&gt; &lt;method&gt;
+ * </pre>
+ * Methods are qualified signatures, {@code java.util.Map.put(K, V)} for instance. A signature that is not in the
+ * graph stands for every method it is the start of, {@code java.util.Map.put(} for all the overloads.
+ */
+public class CallGraphQuery {
+
+    private static final Logger log = LoggerFactory.getLogger(CallGraphQuery.class);
+
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+        CallGraph callGraph = CallGraph.load(Paths.get(args[1]));
+        log.info("Loaded {} methods and {} calls in {} ms", callGraph.size(), callGraph.getEdgeCount(),
+                System.currentTimeMillis() - start);
+
+        int[] methods = find(callGraph, args[2]);
+        start = System.nanoTime();
+        List<String> answer;
+        switch (args[0]) {
+            case "callers":
+                answer = callGraph.getSignatures(collect(callGraph, methods, callGraph::getCallers));
+                break;
+            case "callees":
+                answer = callGraph.getSignatures(collect(callGraph, methods, callGraph::getCallees));
+                break;
+            case "transitive-callers":
+                answer = callGraph.getSignatures(traverse(methods, callGraph::getTransitiveCallers));
+                break;
+            case "reachable":
+                answer = callGraph.getSignatures(traverse(methods, callGraph::getReachable));
+                break;
+            case "reaches":
+                BitSet targets = new BitSet();
+                for (int id : find(callGraph, args[3])) {
+                    targets.set(id);
+                }
+                answer = List.of(String.valueOf(traverse(methods, callGraph::getReachable).intersects(targets)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown query " + args[0]);
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+
+        answer.forEach(log::info);
+        log.info("{} answered with {} methods in {} us", args[0], answer.size(), micros);
+    }
+
+    private static int[] find(CallGraph callGraph, String signature) {
+        int[] ids = callGraph.findId(signature)
+                .stream()
+                .toArray();
+        if (ids.length == 0) {
+            ids = callGraph.findByPrefix(signature);
+        }
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("No method " + signature + " in the call graph");
+        }
+        return ids;
+    }
+
+    private static BitSet collect(CallGraph callGraph, int[] methods, IntFunction<int[]> neighbours) {
+        BitSet found = new BitSet(callGraph.size());
+        for (int method : methods) {
+            for (int id : neighbours.apply(method)) {
+                found.set(id);
+            }
+        }
+        return found;
+    }
+
+    private static BitSet traverse(int[] methods, IntFunction<BitSet> traversal) {
+        BitSet found = new BitSet();
+        for (int method : methods) {
+            found.or(traversal.apply(method));
+        }
+        return found;
+    }
+
+}
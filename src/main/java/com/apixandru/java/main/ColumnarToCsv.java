@@ -0,0 +1,62 @@
+package com.apixandru.java.main;
+
+import com.apixandru.util.ColumnarReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Converts every columnar report below a directory back to the CSV file the default writers would have produced,
+ * each with the dictionary of the library it belongs to, the closest one above it.
+ */
+public class ColumnarToCsv {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarToCsv.class);
+
+    private static final Map<Path, String[]> dictionaries = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+        List<Path> reports = findReports(Paths.get(args[0]));
+        reports.parallelStream().forEach(ColumnarToCsv::convert);
+        log.info("Converted {} reports in {} ms", reports.size(), System.currentTimeMillis() - start);
+    }
+
+    private static List<Path> findReports(Path root) {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(ColumnarReport.EXTENSION))
+                    .collect(toList());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot list " + root, ex);
+        }
+    }
+
+    private static void convert(Path report) {
+        String name = report.getFileName().toString();
+        String csvName = name.substring(0, name.length() - ColumnarReport.EXTENSION.length()) + ".csv";
+        File csv = report.resolveSibling(csvName).toFile();
+        ColumnarReport.read(report.toFile(), findDictionary(report)).writeCsv(csv);
+    }
+
+    private static String[] findDictionary(Path report) {
+        for (Path dir = report.toAbsolutePath().getParent(); dir != null; dir = dir.getParent()) {
+            if (Files.isRegularFile(dir.resolve(ColumnarReport.DICTIONARY_FILE))) {
+                return dictionaries.computeIfAbsent(dir, key -> ColumnarReport.readDictionary(key.toFile()));
+            }
+        }
+        throw new IllegalStateException("No " + ColumnarReport.DICTIONARY_FILE + " above " + report);
+    }
+
+}
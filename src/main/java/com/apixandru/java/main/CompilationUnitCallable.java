@@ -1,26 +1,58 @@
 package com.apixandru.java.main;
 
+import com.apixandru.java.metrics.RunMetrics;
 import com.apixandru.java.visitors.JpUtils;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 
-import java.io.File;
+import java.nio.file.Path;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class CompilationUnitCallable implements Callable<CompilationUnit> {
 
     private static final ThreadLocal<JavaParser> javaParser = ThreadLocal.withInitial(MainDataCollectorMultiThreadded::createParser);
 
-    private final File inputFile;
+    private final Callable<SourceLoader.Source> source;
 
-    public CompilationUnitCallable(File inputFile) {
-        this.inputFile = inputFile;
+    public CompilationUnitCallable(Path inputFile) {
+        this.source = () -> SourceLoader.read(inputFile);
+    }
+
+    /**
+     * @param source usually still being read by a {@link SourceLoader} while this waits in the parse queue
+     */
+    public CompilationUnitCallable(Future<SourceLoader.Source> source) {
+        this.source = source::get;
     }
 
     @Override
     public CompilationUnit call() {
+        return parse(getSource());
+    }
+
+    static CompilationUnit parse(SourceLoader.Source loaded) {
         JavaParser parser = javaParser.get();
-        return JpUtils.parse(parser, inputFile);
+        long start = System.nanoTime();
+        CompilationUnit compilationUnit = JpUtils.parse(parser, loaded.getPath(), loaded.provider());
+        RunMetrics.INSTANCE.recordStage(loaded.getPath().toString(), RunMetrics.Stage.PARSE, System.nanoTime() - start);
+        return compilationUnit;
+    }
+
+    SourceLoader.Source getSource() {
+        try {
+            return source.call();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
     }
 
 }
@@ -0,0 +1,348 @@
+package com.apixandru.java.main;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a synthetic source tree, one type per file, shaped by a {@link CorpusSpec}. The layout of the types, which
+ * package each one lives in and what it extends, comes from the seed alone, and every file draws its references and
+ * calls from a generator seeded with the seed and the index of the file, so files can be written in any order and
+ * the same spec always yields the same tree.
+ * <p>
+ * Classes extend other classes up to the inheritance depth and implement interfaces, every type declares the same
+ * method names with a varying number of overloads and calls them on the types it references, and generic types
+ * are referenced with type arguments, so the tree exercises type, method and overload resolution alike.
+ */
+public final class CorpusGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(CorpusGenerator.class);
+
+    static final String ROOT_PACKAGE = "synthetic";
+    static final String MARKER = "corpus.properties";
+
+    private static final String[] NAME_PREFIXES = {"Service", "Repository", "Handler", "Model", "Factory", "Listener", "Builder", "Resolver"};
+    private static final String[] ARGUMENTS = {"1", "\"a\"", "1L", "this", "1.0", "List.of(\"a\")"};
+
+    private static final int SUPERTYPE_WINDOW = 64;
+    private static final int SUPERTYPE_ATTEMPTS = 4;
+
+    private final CorpusSpec spec;
+    private final String[] packageNames;
+    private final int[] packageOf;
+    private final boolean[] isInterface;
+    private final boolean[] isGeneric;
+    private final int[] superclass;
+    private final int[] superinterface;
+    private final boolean[] hasInterface;
+    private final int[] depth;
+    private final int[] overloads;
+
+    private CorpusGenerator(CorpusSpec spec) {
+        this.spec = spec;
+        int fileCount = spec.getFileCount();
+        int packageCount = (fileCount + spec.getTypesPerPackage() - 1) / spec.getTypesPerPackage();
+        this.packageNames = new String[packageCount];
+        for (int i = 0; i < packageCount; i++) {
+            packageNames[i] = packageName(i, packageCount, spec.getPackageDepth());
+        }
+        this.packageOf = new int[fileCount];
+        this.isInterface = new boolean[fileCount];
+        this.isGeneric = new boolean[fileCount];
+        this.superclass = new int[fileCount];
+        this.superinterface = new int[fileCount];
+        this.hasInterface = new boolean[fileCount];
+        this.depth = new int[fileCount];
+        this.overloads = new int[fileCount];
+
+        Random random = new Random(spec.getSeed());
+        for (int i = 0; i < fileCount; i++) {
+            packageOf[i] = i / spec.getTypesPerPackage();
+            isInterface[i] = random.nextInt(100) < spec.getInterfaceRatio();
+            isGeneric[i] = random.nextInt(100) < spec.getGenericsRatio();
+            overloads[i] = 1 + random.nextInt(spec.getOverloadsPerMethod());
+            superclass[i] = isInterface[i] ? -1 : pickSuperclass(i, random);
+            depth[i] = superclass[i] == -1 ? 0 : depth[superclass[i]] + 1;
+            boolean inheritsInterface = superclass[i] != -1 && hasInterface[superclass[i]];
+            superinterface[i] = inheritsInterface ? -1 : pickSuperinterface(i, random);
+            hasInterface[i] = inheritsInterface || superinterface[i] != -1;
+        }
+    }
+
+    public static void main(String[] args) {
+        Library library = ensureGenerated(CorpusSpec.parse(Arrays.asList(args)));
+        log.info("Corpus is in {}", library.getSrcDirs().get(0));
+    }
+
+    /**
+     * Returns the library of the corpus, generating it first unless a previous run already completed it.
+     */
+    public static Library ensureGenerated(CorpusSpec spec) {
+        Library library = Libraries.getSyntheticLibrary(spec);
+        Path dir = library.getSrcPaths().get(0);
+        if (Files.isRegularFile(dir.resolve(MARKER))) {
+            log.info("Reusing {}", dir);
+            return library;
+        }
+        deleteRecursively(dir);
+        generate(spec, dir);
+        return library;
+    }
+
+    public static void generate(CorpusSpec spec, Path dir) {
+        long start = System.currentTimeMillis();
+        CorpusGenerator generator = new CorpusGenerator(spec);
+        IntStream.range(0, spec.getFileCount())
+                .parallel()
+                .forEach(i -> generator.write(dir, i));
+        writeMarker(spec, dir);
+        log.info("Generated {} files in {} packages under {} in {} ms", spec.getFileCount(),
+                generator.packageNames.length, dir, System.currentTimeMillis() - start);
+    }
+
+    private static String packageName(int index, int packageCount, int packageDepth) {
+        int fanOut = 2;
+        while (Math.pow(fanOut, packageDepth) < packageCount) {
+            fanOut++;
+        }
+        StringBuilder name = new StringBuilder(ROOT_PACKAGE);
+        for (int level = packageDepth - 1; level >= 0; level--) {
+            name.append(".p").append((int) (index / Math.pow(fanOut, level)) % fanOut);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Supertypes are picked among the types just before, so that chains get as deep as the spec allows.
+     */
+    private int pickSuperclass(int index, Random random) {
+        if (index == 0 || spec.getInheritanceDepth() == 0) {
+            return -1;
+        }
+        for (int attempt = 0; attempt < SUPERTYPE_ATTEMPTS; attempt++) {
+            int candidate = index - 1 - random.nextInt(Math.min(index, SUPERTYPE_WINDOW));
+            if (!isInterface[candidate] && depth[candidate] < spec.getInheritanceDepth()) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A class only implements an interface when none of its superclasses does, two unrelated interfaces could
+     * otherwise bring in the same default methods.
+     */
+    private int pickSuperinterface(int index, Random random) {
+        if (index == 0) {
+            return -1;
+        }
+        for (int attempt = 0; attempt < SUPERTYPE_ATTEMPTS; attempt++) {
+            int candidate = index - 1 - random.nextInt(Math.min(index, SUPERTYPE_WINDOW));
+            if (isInterface[candidate]) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private int pickReference(int index, Random random) {
+        int fileCount = spec.getFileCount();
+        if (packageNames.length > 1 && random.nextInt(100) < spec.getCrossPackageRatio()) {
+            int candidate = random.nextInt(fileCount);
+            while (packageOf[candidate] == packageOf[index]) {
+                candidate = random.nextInt(fileCount);
+            }
+            return candidate;
+        }
+        int packageStart = packageOf[index] * spec.getTypesPerPackage();
+        int packageSize = Math.min(spec.getTypesPerPackage(), fileCount - packageStart);
+        return packageStart + random.nextInt(packageSize);
+    }
+
+    private void write(Path dir, int index) {
+        Path file = dir.resolve(packageNames[packageOf[index]].replace('.', '/'))
+                .resolve(typeName(index) + ".java");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, generate(index), UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+    }
+
+    private String generate(int index) {
+        Random random = new Random(spec.getSeed() * 1_000_003 + index);
+        int[] references = new int[isInterface[index] ? 0 : spec.getReferencesPerType()];
+        for (int i = 0; i < references.length; i++) {
+            references[i] = pickReference(index, random);
+        }
+
+        Set<String> imports = new TreeSet<>();
+        imports.add("java.util.List");
+        addImport(imports, index, superclass[index]);
+        addImport(imports, index, superinterface[index]);
+        for (int reference : references) {
+            addImport(imports, index, reference);
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(packageNames[packageOf[index]]).append(";\n\n");
+        for (String imported : imports) {
+            out.append("import ").append(imported).append(";\n");
+        }
+        out.append('\n');
+        if (isInterface[index]) {
+            appendInterface(out, index);
+        } else {
+            appendClass(out, index, references, random);
+        }
+        return out.toString();
+    }
+
+    private void addImport(Set<String> imports, int from, int to) {
+        if (to != -1 && packageOf[to] != packageOf[from]) {
+            imports.add(packageNames[packageOf[to]] + "." + typeName(to));
+        }
+    }
+
+    private void appendInterface(StringBuilder out, int index) {
+        out.append("public interface ").append(typeName(index)).append(typeParameters(index));
+        if (superinterface[index] != -1) {
+            out.append(" extends ").append(supertype(index, superinterface[index]));
+        }
+        out.append(" {\n\n");
+        out.append("    int id();\n\n");
+        if (isGeneric[index]) {
+            out.append("    default T first").append(index).append("(List<T> values) {\n");
+            out.append("        return values.get(0);\n");
+            out.append("    }\n\n");
+        }
+        for (int method = 0; method < spec.getMethodsPerType(); method++) {
+            for (int overload = 0; overload < overloads[index]; overload++) {
+                out.append("    default int m").append(method).append('(').append(CorpusSpec.OVERLOAD_TYPES.get(overload)).append(" p) {\n");
+                out.append("        return id();\n");
+                out.append("    }\n\n");
+            }
+        }
+        out.append("}\n");
+    }
+
+    private void appendClass(StringBuilder out, int index, int[] references, Random random) {
+        out.append("public class ").append(typeName(index)).append(typeParameters(index));
+        if (superclass[index] != -1) {
+            out.append(" extends ").append(supertype(index, superclass[index]));
+        }
+        if (superinterface[index] != -1) {
+            out.append(" implements ").append(supertype(index, superinterface[index]));
+        }
+        out.append(" {\n\n");
+
+        if (isGeneric[index]) {
+            out.append("    private T value;\n");
+        }
+        for (int i = 0; i < references.length; i++) {
+            out.append("    private ").append(reference(references[i])).append(" ref").append(i).append(";\n");
+        }
+        out.append('\n');
+
+        out.append("    public int id() {\n");
+        out.append("        return ").append(index).append(";\n");
+        out.append("    }\n\n");
+        if (isGeneric[index]) {
+            out.append("    public T getValue").append(index).append("() {\n");
+            out.append("        return value;\n");
+            out.append("    }\n\n");
+            out.append("    public void setValue").append(index).append("(T value) {\n");
+            out.append("        this.value = value;\n");
+            out.append("    }\n\n");
+        }
+
+        for (int method = 0; method < spec.getMethodsPerType(); method++) {
+            for (int overload = 0; overload < overloads[index]; overload++) {
+                out.append("    public int m").append(method).append('(').append(CorpusSpec.OVERLOAD_TYPES.get(overload)).append(" p) {\n");
+                if (superclass[index] != -1) {
+                    out.append("        int result = super.m").append(method).append("(1);\n");
+                } else {
+                    out.append("        int result = id();\n");
+                }
+                for (int i = 0; i < references.length; i++) {
+                    appendCall(out, "ref" + i, references[i], random);
+                }
+                out.append("        return result;\n");
+                out.append("    }\n\n");
+            }
+        }
+        out.append("}\n");
+    }
+
+    private void appendCall(StringBuilder out, String field, int target, Random random) {
+        int overload = random.nextInt(overloads[target]);
+        out.append("        result += ").append(field).append(".m").append(random.nextInt(spec.getMethodsPerType()))
+                .append('(').append(ARGUMENTS[overload]).append(");\n");
+        if (isGeneric[target] && isInterface[target]) {
+            out.append("        result += ").append(field).append(".first").append(target).append("(List.of(\"a\")).length();\n");
+        } else if (isGeneric[target]) {
+            out.append("        result += ").append(field).append(".getValue").append(target).append("().length();\n");
+        }
+    }
+
+    private String typeParameters(int index) {
+        return isGeneric[index] ? "<T>" : "";
+    }
+
+    /**
+     * Generic supertypes of generic types pass their own type parameter along, everything else gets {@code String}.
+     */
+    private String supertype(int index, int supertype) {
+        if (!isGeneric[supertype]) {
+            return typeName(supertype);
+        }
+        return typeName(supertype) + (isGeneric[index] ? "<T>" : "<String>");
+    }
+
+    private String reference(int target) {
+        return typeName(target) + (isGeneric[target] ? "<String>" : "");
+    }
+
+    private static String typeName(int index) {
+        return NAME_PREFIXES[index % NAME_PREFIXES.length] + index;
+    }
+
+    private static void writeMarker(CorpusSpec spec, Path dir) {
+        try {
+            Files.writeString(dir.resolve(MARKER), "key=" + spec.getKey() + "\n", UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot complete " + dir, e);
+        }
+    }
+
+    /**
+     * Leftovers of a run that did not complete are removed before generating again.
+     */
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete " + dir, e);
+        }
+    }
+
+}
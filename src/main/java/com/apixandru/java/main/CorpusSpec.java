@@ -0,0 +1,254 @@
+package com.apixandru.java.main;
+
+import java.util.List;
+
+/**
+ * The shape of a corpus written by {@link CorpusGenerator}. The same spec always yields the same sources, so a
+ * corpus can be thrown away and generated again instead of being kept around. Ratios are percentages.
+ */
+public final class CorpusSpec {
+
+    /**
+     * The parameter types of the overloads of every generated method, the first one is always present.
+     */
+    static final List<String> OVERLOAD_TYPES = List.of("int", "String", "long", "Object", "double", "List<String>");
+
+    public static final CorpusSpec DEFAULT = new CorpusSpec();
+
+    private long seed = 42;
+    private int fileCount = 1000;
+    private int packageDepth = 3;
+    private int typesPerPackage = 40;
+    private int inheritanceDepth = 4;
+    private int methodsPerType = 4;
+    private int overloadsPerMethod = 3;
+    private int referencesPerType = 3;
+    private int genericsRatio = 20;
+    private int crossPackageRatio = 30;
+    private int interfaceRatio = 15;
+
+    private CorpusSpec() {
+    }
+
+    /**
+     * Reads {@code --name=value} options, {@code --files=100000 --seed=7} for instance, anything else is ignored.
+     */
+    public static CorpusSpec parse(List<String> args) {
+        CorpusSpec spec = DEFAULT;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator == -1) {
+                continue;
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "seed":
+                    spec = spec.withSeed(Long.parseLong(value));
+                    break;
+                case "files":
+                    spec = spec.withFileCount(Integer.parseInt(value));
+                    break;
+                case "package-depth":
+                    spec = spec.withPackageDepth(Integer.parseInt(value));
+                    break;
+                case "types-per-package":
+                    spec = spec.withTypesPerPackage(Integer.parseInt(value));
+                    break;
+                case "inheritance-depth":
+                    spec = spec.withInheritanceDepth(Integer.parseInt(value));
+                    break;
+                case "methods":
+                    spec = spec.withMethodsPerType(Integer.parseInt(value));
+                    break;
+                case "overloads":
+                    spec = spec.withOverloadsPerMethod(Integer.parseInt(value));
+                    break;
+                case "references":
+                    spec = spec.withReferencesPerType(Integer.parseInt(value));
+                    break;
+                case "generics":
+                    spec = spec.withGenericsRatio(Integer.parseInt(value));
+                    break;
+                case "cross-package":
+                    spec = spec.withCrossPackageRatio(Integer.parseInt(value));
+                    break;
+                case "interfaces":
+                    spec = spec.withInterfaceRatio(Integer.parseInt(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return spec;
+    }
+
+    public CorpusSpec withSeed(long seed) {
+        CorpusSpec copy = copy();
+        copy.seed = seed;
+        return copy;
+    }
+
+    public CorpusSpec withFileCount(int fileCount) {
+        CorpusSpec copy = copy();
+        copy.fileCount = atLeast("fileCount", fileCount, 1);
+        return copy;
+    }
+
+    public CorpusSpec withPackageDepth(int packageDepth) {
+        CorpusSpec copy = copy();
+        copy.packageDepth = atLeast("packageDepth", packageDepth, 1);
+        return copy;
+    }
+
+    public CorpusSpec withTypesPerPackage(int typesPerPackage) {
+        CorpusSpec copy = copy();
+        copy.typesPerPackage = atLeast("typesPerPackage", typesPerPackage, 1);
+        return copy;
+    }
+
+    /**
+     * How many classes a class may have above it, not counting {@code Object}. Zero means no class extends another.
+     */
+    public CorpusSpec withInheritanceDepth(int inheritanceDepth) {
+        CorpusSpec copy = copy();
+        copy.inheritanceDepth = atLeast("inheritanceDepth", inheritanceDepth, 0);
+        return copy;
+    }
+
+    public CorpusSpec withMethodsPerType(int methodsPerType) {
+        CorpusSpec copy = copy();
+        copy.methodsPerType = atLeast("methodsPerType", methodsPerType, 1);
+        return copy;
+    }
+
+    /**
+     * The most overloads a method name may have, each type picks how many of them it declares.
+     */
+    public CorpusSpec withOverloadsPerMethod(int overloadsPerMethod) {
+        if (overloadsPerMethod > OVERLOAD_TYPES.size()) {
+            throw new IllegalArgumentException("At most " + OVERLOAD_TYPES.size() + " overloads, not " + overloadsPerMethod);
+        }
+        CorpusSpec copy = copy();
+        copy.overloadsPerMethod = atLeast("overloadsPerMethod", overloadsPerMethod, 1);
+        return copy;
+    }
+
+    /**
+     * How many other types every type holds a field of and calls methods on.
+     */
+    public CorpusSpec withReferencesPerType(int referencesPerType) {
+        CorpusSpec copy = copy();
+        copy.referencesPerType = atLeast("referencesPerType", referencesPerType, 0);
+        return copy;
+    }
+
+    public CorpusSpec withGenericsRatio(int genericsRatio) {
+        CorpusSpec copy = copy();
+        copy.genericsRatio = percentage("genericsRatio", genericsRatio);
+        return copy;
+    }
+
+    /**
+     * How many of the references of a type point outside of its package.
+     */
+    public CorpusSpec withCrossPackageRatio(int crossPackageRatio) {
+        CorpusSpec copy = copy();
+        copy.crossPackageRatio = percentage("crossPackageRatio", crossPackageRatio);
+        return copy;
+    }
+
+    public CorpusSpec withInterfaceRatio(int interfaceRatio) {
+        CorpusSpec copy = copy();
+        copy.interfaceRatio = percentage("interfaceRatio", interfaceRatio);
+        return copy;
+    }
+
+    private CorpusSpec copy() {
+        CorpusSpec copy = new CorpusSpec();
+        copy.seed = seed;
+        copy.fileCount = fileCount;
+        copy.packageDepth = packageDepth;
+        copy.typesPerPackage = typesPerPackage;
+        copy.inheritanceDepth = inheritanceDepth;
+        copy.methodsPerType = methodsPerType;
+        copy.overloadsPerMethod = overloadsPerMethod;
+        copy.referencesPerType = referencesPerType;
+        copy.genericsRatio = genericsRatio;
+        copy.crossPackageRatio = crossPackageRatio;
+        copy.interfaceRatio = interfaceRatio;
+        return copy;
+    }
+
+    private static int atLeast(String name, int value, int min) {
+        if (value < min) {
+            throw new IllegalArgumentException(name + " must be at least " + min + ", not " + value);
+        }
+        return value;
+    }
+
+    private static int percentage(String name, int value) {
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException(name + " must be a percentage, not " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Tells generated corpora apart, every parameter is part of it.
+     */
+    public String getKey() {
+        return "s" + seed + "-f" + fileCount + "-p" + packageDepth + "x" + typesPerPackage + "-i" + inheritanceDepth
+                + "-m" + methodsPerType + "x" + overloadsPerMethod + "-r" + referencesPerType
+                + "-g" + genericsRatio + "-c" + crossPackageRatio + "-n" + interfaceRatio;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getPackageDepth() {
+        return packageDepth;
+    }
+
+    public int getTypesPerPackage() {
+        return typesPerPackage;
+    }
+
+    public int getInheritanceDepth() {
+        return inheritanceDepth;
+    }
+
+    public int getMethodsPerType() {
+        return methodsPerType;
+    }
+
+    public int getOverloadsPerMethod() {
+        return overloadsPerMethod;
+    }
+
+    public int getReferencesPerType() {
+        return referencesPerType;
+    }
+
+    public int getGenericsRatio() {
+        return genericsRatio;
+    }
+
+    public int getCrossPackageRatio() {
+        return crossPackageRatio;
+    }
+
+    public int getInterfaceRatio() {
+        return interfaceRatio;
+    }
+
+    @Override
+    public String toString() {
+        return "CorpusSpec{" + getKey() + '}';
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.metrics.GcSnapshot;
+import com.apixandru.java.visitors.AbstractCsvReport;
+import com.apixandru.java.visitors.DelegatingSymbolResolver;
+import com.apixandru.java.visitors.ExtractionContext;
+import com.apixandru.java.visitors.ExtractionEngine;
+import com.apixandru.java.visitors.MissingSymbols;
+import com.apixandru.util.SymbolTable;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.LazyJavaParserStuff;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ParsedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PersistentTypeIndex;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.apixandru.java.main.MainDataCollectorMultiThreadded.LAZY_CACHE_CONFIG;
+import static com.apixandru.java.main.MainDataCollectorMultiThreadded.LAZY_MAX_HEAP_RATIO;
+import static com.apixandru.java.main.MainDataCollectorMultiThreadded.LAZY_MAX_UNITS;
+
+/**
+ * Keeps the type index, the parsed units and the solver of a library between updates, and only reports again the
+ * files that changed along with the files whose existing reports reference a type declared in them.
+ */
+public class IncrementalAnalysis {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalAnalysis.class);
+
+    private final Library library;
+    private final String targetDir;
+    private final Path indexFile;
+
+    private final PersistentTypeIndex persistentIndex;
+    private final TypeIndex typeIndex;
+    private final LazyJavaParserStuff jps;
+    private final ParsedTypeSolver typeSolver;
+    private final ReportDependencies dependencies = new ReportDependencies();
+
+    public IncrementalAnalysis(Library library, String analysisRoot) {
+        this.library = library;
+        this.targetDir = library.getOutputDir(analysisRoot);
+        this.indexFile = library.getIndexFile(analysisRoot);
+        this.persistentIndex = PersistentTypeIndex.load(indexFile, library.getKey());
+        this.typeIndex = persistentIndex.toTypeIndex();
+
+        DelegatingSymbolResolver dsr = new DelegatingSymbolResolver();
+        this.jps = new LazyJavaParserStuff(typeIndex, path -> MainDataCollectorMultiThreadded.parseAndInject(path, dsr),
+                LAZY_MAX_UNITS, LAZY_MAX_HEAP_RATIO);
+        this.typeSolver = ParsedTypeSolver.inMemory(jps, library.getCacheConfig().orElse(LAZY_CACHE_CONFIG));
+        dsr.setSr(new JavaSymbolSolver(typeSolver), typeSolver);
+
+        for (String file : typeIndex.getFiles()) {
+            dependencies.load(file, getOutputFile(file));
+        }
+    }
+
+    /**
+     * The files that were added, modified or deleted since the index was last saved.
+     */
+    public Set<String> findChangedFiles() {
+        Set<String> found = ConcurrentHashMap.newKeySet();
+        Set<String> changed = ConcurrentHashMap.newKeySet();
+        SourceFiles.discover(library.getSrcPaths(), path -> {
+            String file = TypeIndex.toKey(path);
+            found.add(file);
+            if (persistentIndex.findUpToDate(path).isEmpty()) {
+                changed.add(file);
+            }
+        });
+        for (String file : typeIndex.getFiles()) {
+            if (!found.contains(file)) {
+                changed.add(file);
+            }
+        }
+        return new TreeSet<>(changed);
+    }
+
+    public void update(Set<String> changedFiles) {
+        if (changedFiles.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        GcSnapshot gcBefore = GcSnapshot.take();
+        Set<String> changedTypes = new HashSet<>();
+        for (String file : changedFiles) {
+            persistentIndex.get(file).ifPresent(entry -> changedTypes.addAll(entry.getTypeNames()));
+            persistentIndex.remove(file);
+            typeIndex.remove(file);
+            jps.invalidate(file);
+        }
+        Set<String> affected = new TreeSet<>();
+        for (String file : changedFiles) {
+            if (reindex(file, changedTypes)) {
+                affected.add(file);
+            } else {
+                AbstractCsvReport.deleteReports(getOutputFile(file));
+                dependencies.remove(file);
+            }
+        }
+        for (String file : dependencies.findReferencing(changedTypes)) {
+            if (typeIndex.contains(TypeIndex.toPath(file))) {
+                affected.add(file);
+                // parsed again, the resolutions kept on its nodes point to the declarations that changed
+                jps.invalidate(file);
+            }
+        }
+        typeSolver.invalidate();
+        MissingSymbols.INSTANCE.forgetMissing();
+
+        affected.forEach(this::report);
+        persistentIndex.save(indexFile);
+        log.info("{} changed files, {} reported again in {} ms", changedFiles.size(), affected.size(), System.currentTimeMillis() - start);
+        // not cleared, the resolutions cached on the units kept parsed are keyed by these symbols
+        log.info("Symbol table holds {} names, {}", SymbolTable.INSTANCE.size(), GcSnapshot.take().describeSince(gcBefore));
+    }
+
+    private boolean reindex(String file, Set<String> changedTypes) {
+        Path path = TypeIndex.toPath(file);
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try {
+            PersistentTypeIndex.Entry entry = MainDataCollectorMultiThreadded.indexEntry(path);
+            persistentIndex.put(entry);
+            typeIndex.add(file, entry.getTypeNames());
+            changedTypes.addAll(entry.getTypeNames());
+            return true;
+        } catch (RuntimeException ex) {
+            log.warn("Cannot index {}, leaving it out until it changes again", file, ex);
+            return false;
+        }
+    }
+
+    private void report(String file) {
+        Path path = TypeIndex.toPath(file);
+        File outputFile = getOutputFile(file);
+        AbstractCsvReport.deleteReports(outputFile);
+        CompilationUnit compilationUnit = jps.findCompilationUnit(path)
+                .orElseThrow(() -> new IllegalStateException("Not indexed " + file));
+        try (ExtractionContext context = new ExtractionContext(outputFile)) {
+            ExtractionEngine.INSTANCE.run(compilationUnit, context);
+        }
+        dependencies.load(file, outputFile);
+    }
+
+    private File getOutputFile(String file) {
+        return library.getOutputFile(TypeIndex.toPath(file), targetDir);
+    }
+
+}
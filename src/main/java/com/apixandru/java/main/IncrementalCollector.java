@@ -0,0 +1,26 @@
+package com.apixandru.java.main;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class IncrementalCollector {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String analysisRoot = "C:/_/workdir/analysis/";
+
+        Library library = Libraries.getCommonsLangLibrary();
+
+        IncrementalAnalysis analysis = new IncrementalAnalysis(library, analysisRoot);
+        analysis.update(analysis.findChangedFiles());
+
+        if (!Arrays.asList(args).contains("--watch")) {
+            return;
+        }
+        try (SourceWatcher watcher = new SourceWatcher(library.getSrcPaths())) {
+            while (!Thread.currentThread().isInterrupted()) {
+                analysis.update(watcher.awaitChanges(analysis::findChangedFiles));
+            }
+        }
+    }
+
+}
@@ -1,8 +1,14 @@
 package com.apixandru.java.main;
 
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CacheSpec;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeSolverCacheConfig;
+
+import java.time.Duration;
+
 public class Libraries {
 
     private static final String rootSrcPath = "C:/_/workdir/sources";
+    private static final String syntheticSrcPath = System.getProperty("java.io.tmpdir") + "/javametadata-synthetic";
 
     public static Library getHotspotLibrary() {
         return new Library(rootSrcPath, "JDK", "oracle-jdk8", "jdk-8u202-linux-x64");
@@ -10,11 +16,49 @@ public class Libraries {
 
     public static Library getOpenJdkLibrary() {
         return new Library(rootSrcPath, "JDK", "openjdk8", "jdk8-b120",
-                "corba", "jdk", "jaf", "jaxp", "jaxws", "nashorn", "langtools");
+                "corba", "jdk", "jaf", "jaxp", "jaxws", "nashorn", "langtools")
+                .withCacheConfig(TypeSolverCacheConfig.of(CacheSpec.maximumSize(200_000).expireAfterAccess(Duration.ofMinutes(30))));
     }
 
     public static Library getCommonsLangLibrary() {
-        return new Library(rootSrcPath, "commons-io", "commons-io", "2.11.0");
+        return new Library(rootSrcPath, "commons-io", "commons-io", "2.11.0")
+                .withDependencies(getHotspotLibrary());
+    }
+
+    /**
+     * The libraries a batch can be given by name, or by Maven coordinates, {@code commons-io:commons-io:2.11.0} for
+     * instance, for a library read from the local repository.
+     */
+    public static Library getLibrary(String name) {
+        switch (name) {
+            case "hotspot":
+                return getHotspotLibrary();
+            case "openjdk":
+                return getOpenJdkLibrary();
+            case "commons-io":
+                return getCommonsLangLibrary();
+            default:
+                return getMavenLibrary(name);
+        }
+    }
+
+    /**
+     * Read from its source jar in the local repository, resolved against the JDK.
+     */
+    public static Library getMavenLibrary(String coordinates) {
+        String[] parts = coordinates.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Unknown library " + coordinates);
+        }
+        return Library.ofLocalRepository(parts[0], parts[1], parts[2])
+                .withDependencies(getHotspotLibrary());
+    }
+
+    /**
+     * Where {@link CorpusGenerator} writes the corpus of the spec, it may not have been generated yet.
+     */
+    public static Library getSyntheticLibrary(CorpusSpec spec) {
+        return new Library(syntheticSrcPath, "synthetic", "corpus", spec.getKey());
     }
 
 }
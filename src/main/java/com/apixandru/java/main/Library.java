@@ -1,25 +1,32 @@
 package com.apixandru.java.main;
 
+import com.github.javaparser.symbolsolver.resolution.typesolvers.StubIndex;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeSolverCacheConfig;
+
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.stream.Collectors.toList;
 
 public class Library {
 
     private final List<File> children = new ArrayList<>();
+    private final List<Path> sourceJars = new ArrayList<>();
     private final String root;
 
     private final String group;
     private final String artifact;
     private final String version;
 
+    private final List<Library> dependencies = new ArrayList<>();
+
+    private TypeSolverCacheConfig cacheConfig;
+
     public Library(String root, String group, String artifact, String version, String... modules) {
-        this.root = root;
-        this.group = group;
-        this.artifact = artifact;
-        this.version = version;
+        this(root, group, artifact, version, List.of());
 
         File rootFile = getFile(root);
         if (modules.length == 0) {
@@ -31,10 +38,84 @@ public class Library {
         }
     }
 
+    private Library(String root, String group, String artifact, String version, List<Path> sourceJars) {
+        this.root = root;
+        this.group = group;
+        this.artifact = artifact;
+        this.version = version;
+        this.sourceJars.addAll(sourceJars);
+    }
+
+    /**
+     * A library read straight from its source jars, {@code commons-io-2.11.0-sources.jar} for instance, nothing is
+     * extracted. Its output goes where the output of the same library read from a directory would.
+     */
+    public static Library ofSourceJars(String group, String artifact, String version, Path... jars) {
+        return new Library(null, group, artifact, version, List.of(jars));
+    }
+
+    /**
+     * Same as {@link #ofSourceJars} with the jar Maven downloaded to the local repository.
+     */
+    public static Library ofLocalRepository(String group, String artifact, String version) {
+        return ofSourceJars(group, artifact, version, SourceJars.findInLocalRepository(group, artifact, version));
+    }
+
+    /**
+     * Overrides the caches the collectors would give the type solver of this library.
+     */
+    public Library withCacheConfig(TypeSolverCacheConfig cacheConfig) {
+        this.cacheConfig = cacheConfig;
+        return this;
+    }
+
+    public Optional<TypeSolverCacheConfig> getCacheConfig() {
+        return Optional.ofNullable(cacheConfig);
+    }
+
+    /**
+     * The libraries whose types this one refers to, resolved against but not reported.
+     */
+    public Library withDependencies(Library... libraries) {
+        dependencies.addAll(List.of(libraries));
+        return this;
+    }
+
+    public List<Library> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Only libraries read from directories have them, use {@link #getSrcPaths()} for the others.
+     */
     public List<File> getSrcDirs() {
+        if (!sourceJars.isEmpty()) {
+            throw new IllegalStateException(getKey() + " is read from source jars");
+        }
         return children;
     }
 
+    /**
+     * The source directories, or the roots of the source jars, which are opened the first time they are asked for.
+     */
+    public List<Path> getSrcPaths() {
+        if (!sourceJars.isEmpty()) {
+            return sourceJars.stream()
+                    .map(SourceJars::open)
+                    .collect(toList());
+        }
+        return children.stream()
+                .map(File::toPath)
+                .collect(toList());
+    }
+
+    /**
+     * Once the library is done with, a batch over many libraries would otherwise run out of file handles.
+     */
+    public void closeSourceJars() {
+        sourceJars.forEach(SourceJars::close);
+    }
+
     private String buildFile(String root) {
         return getFile(root)
                 .getAbsolutePath();
@@ -48,11 +129,37 @@ public class Library {
         return buildFile(relativeTo);
     }
 
+    public String getKey() {
+        return String.join(":", group, artifact, version);
+    }
+
+    public Path getIndexFile(String relativeTo) {
+        return getFile(relativeTo).toPath()
+                .resolveSibling(version + ".typeindex");
+    }
+
+    /**
+     * Where {@link StubExtractor} writes the stubs of this library, which may not have been extracted yet.
+     */
+    public Path getStubFile(String relativeTo) {
+        return getFile(relativeTo).toPath()
+                .resolveSibling(version + StubIndex.EXTENSION);
+    }
+
     public File getOutputFile(File inputFile, String targetDir) {
-        List<File> file = children.stream()
-                .filter(child -> inputFile.getAbsolutePath().startsWith(child.getAbsolutePath()))
-                .map(child -> inputFile.getAbsolutePath().replace(child.getAbsolutePath(), targetDir))
-                .map(File::new)
+        return getOutputFile(inputFile.toPath(), targetDir);
+    }
+
+    /**
+     * The file has the same path below the target directory as below the source directory or jar it was read from.
+     */
+    public File getOutputFile(Path inputFile, String targetDir) {
+        Path absoluteFile = inputFile.toAbsolutePath();
+        List<File> file = getSrcPaths().stream()
+                .map(Path::toAbsolutePath)
+                .filter(srcPath -> srcPath.getFileSystem().equals(absoluteFile.getFileSystem()))
+                .filter(absoluteFile::startsWith)
+                .map(srcPath -> new File(targetDir, srcPath.relativize(absoluteFile).toString()))
                 .collect(toList());
         if (file.size() != 1) {
             throw new IllegalStateException("Unresolvable file " + inputFile);
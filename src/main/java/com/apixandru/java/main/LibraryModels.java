@@ -0,0 +1,149 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.metrics.RunMetrics;
+import com.apixandru.java.visitors.DelegatingSymbolResolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PerThreadTypeSolvers;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.StubIndex;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeSolverCacheConfig;
+import io.micrometer.core.instrument.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The libraries other libraries depend on, the JDK for instance, each one modelled once from its stubs. A model is
+ * only read once built, so a single one serves every library of a run that depends on it, with its parsed stubs and
+ * the caches of its solvers staying warm from one library to the next.
+ * <p>
+ * Stubs leave out everything dependents cannot see and are a fraction of the size of the sources, so every stub
+ * that was asked for stays parsed, where units parsed from the sources would have to be evicted and parsed again
+ * to keep the heap bounded. Stubs missing from the analysis directory are extracted by {@link StubExtractor} first.
+ * A library that is collected and depended on in the same run is modelled apart from its own collection.
+ */
+public class LibraryModels implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryModels.class);
+
+    private final String analysisRoot;
+
+    private final Map<String, Model> models = new LinkedHashMap<>();
+    private final Set<String> building = new HashSet<>();
+
+    public LibraryModels(String analysisRoot) {
+        this.analysisRoot = analysisRoot;
+    }
+
+    public List<PerThreadTypeSolvers> getTypeSolvers(List<Library> libraries) {
+        List<PerThreadTypeSolvers> typeSolvers = new ArrayList<>();
+        for (Library library : libraries) {
+            typeSolvers.add(getTypeSolvers(library));
+        }
+        return typeSolvers;
+    }
+
+    /**
+     * Builds the model of the library, and of the libraries it depends on, the first time it is asked for.
+     */
+    public synchronized PerThreadTypeSolvers getTypeSolvers(Library library) {
+        String key = library.getKey();
+        Model model = models.get(key);
+        if (model != null) {
+            return model.typeSolvers;
+        }
+        if (!building.add(key)) {
+            throw new IllegalStateException("Circular dependency on " + key);
+        }
+        List<PerThreadTypeSolvers> dependencies = getTypeSolvers(library.getDependencies());
+
+        long start = System.currentTimeMillis();
+        DelegatingSymbolResolver dsr = new DelegatingSymbolResolver();
+        StubIndex stubs = openStubs(library, dsr);
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(stubs, library.getCacheConfig().orElse(TypeSolverCacheConfig.UNBOUNDED), dependencies);
+        dsr.setSr(typeSolvers::get);
+        List<Meter> meters = MainDataCollectorMultiThreadded.monitorCaches(key, typeSolvers);
+
+        models.put(key, new Model(stubs, dsr, typeSolvers, meters));
+        building.remove(key);
+        log.info("Modelled {} with {} types in {} ms", key, stubs.getTypeNames().size(), System.currentTimeMillis() - start);
+        return typeSolvers;
+    }
+
+    /**
+     * Stubs extracted from another version of the library, which has another key, are extracted again, and so are
+     * stubs that cannot be opened, left over from an older format or damaged.
+     */
+    private StubIndex openStubs(Library library, DelegatingSymbolResolver dsr) {
+        Path stubFile = library.getStubFile(analysisRoot);
+        if (Files.exists(stubFile)) {
+            Optional<StubIndex> stubs = tryToOpenStubs(stubFile, dsr);
+            if (stubs.isPresent() && stubs.get().getKey().equals(library.getKey())) {
+                return stubs.get();
+            }
+            stubs.ifPresent(other -> {
+                log.info("{} holds the stubs of {}, extracting those of {}", stubFile, other.getKey(), library.getKey());
+                other.close();
+            });
+        }
+        StubExtractor.extract(library, stubFile);
+        return StubIndex.open(stubFile, MainDataCollectorMultiThreadded::createParser, dsr::inject);
+    }
+
+    private static Optional<StubIndex> tryToOpenStubs(Path stubFile, DelegatingSymbolResolver dsr) {
+        try {
+            return Optional.of(StubIndex.open(stubFile, MainDataCollectorMultiThreadded::createParser, dsr::inject));
+        } catch (UncheckedIOException | IllegalStateException ex) {
+            log.warn("Cannot open {}, extracting it again", stubFile, ex);
+            return Optional.empty();
+        }
+    }
+
+    public synchronized void logStats() {
+        models.forEach((key, model) -> {
+            log.info("Model of {}:", key);
+            model.stubs.logStats();
+            model.typeSolvers.logCacheStats();
+        });
+    }
+
+    /**
+     * Closes the stub indexes and drops the solvers of every thread, the models cannot be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        models.values().forEach(model -> {
+            RunMetrics.INSTANCE.remove(model.meters);
+            model.dsr.close();
+            model.typeSolvers.close();
+            model.stubs.close();
+        });
+        models.clear();
+    }
+
+    private static final class Model {
+
+        private final StubIndex stubs;
+        private final DelegatingSymbolResolver dsr;
+        private final PerThreadTypeSolvers typeSolvers;
+        private final List<Meter> meters;
+
+        Model(StubIndex stubs, DelegatingSymbolResolver dsr, PerThreadTypeSolvers typeSolvers, List<Meter> meters) {
+            this.stubs = stubs;
+            this.dsr = dsr;
+            this.typeSolvers = typeSolvers;
+            this.meters = meters;
+        }
+
+    }
+
+}
@@ -12,9 +12,8 @@ import org.apache.commons.lang3.time.DurationFormatUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.nio.file.Path;
 import java.time.LocalTime;
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
 import static java.util.stream.Collectors.toList;
@@ -45,38 +44,25 @@ public class MainDataCollector {
                 .map(srcDir -> new JavaParserTypeSolver(srcDir, parserConfiguration))
                 .collect(toList());
 
-        dsr.setSr(new JavaSymbolSolver(new CombinedTypeSolver(parsers)));
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver(parsers);
+        dsr.setSr(new JavaSymbolSolver(typeSolver), typeSolver);
 
-//        LinkedList<File> filesToVisit = new LinkedList<>(Arrays.asList(new File("C:\\_\\workdir\\sources\\JDK\\openjdk8\\jdk8-b120\\jaxws\\com\\sun\\xml\\internal\\rngom\\parse\\compact\\CompactSyntax.java")));
-        LinkedList<File> filesToVisit = new LinkedList<>(library.getSrcDirs());
+//        List<Path> filesToVisit = List.of(Paths.get("C:\\_\\workdir\\sources\\JDK\\openjdk8\\jdk8-b120\\jaxws\\com\\sun\\xml\\internal\\rngom\\parse\\compact\\CompactSyntax.java"));
+        List<Path> filesToVisit = SourceFiles.find(library.getSrcPaths());
         int parsed = 0;
-        while (!filesToVisit.isEmpty()) {
-            File inputFile = filesToVisit.removeFirst();
-            if (inputFile.isDirectory()) {
-                // noinspection ConstantConditions
-                filesToVisit.addAll(Arrays.asList(inputFile.listFiles()));
-            } else if (!inputFile.getName().endsWith(".java")) {
-                System.out.println("Skipping " + inputFile);
-            } else {
-                parsed++;
-                System.out.println(LocalTime.now() + " " + parsed + "/" + filesToVisit.size() + " Parsing " + inputFile);
-                File outputFile = library.getOutputFile(inputFile, targetDir);
-                CompilationUnit parse = JpUtils.parse(javaParser, inputFile);
-
-//                try (CsvReports arg = new CsvReports(outputFile)) {
-//                    parse.accept(CsvReportVisitor.INSTANCE, arg);
-//                }
-
-                try (MethodCsvReport methodCsvReport = new MethodCsvReport(outputFile)) {
-                    parse.accept(MethodResolverVisitor.INSTANCE, methodCsvReport);
-                }
-                try (TypesCsvReport arg = new TypesCsvReport(outputFile)) {
-                    parse.accept(SymbolsExtractVisitor.INSTANCE, arg);
-                }
-                try (DefCsvReport arg = new DefCsvReport(outputFile)) {
-                    parse.accept(DefinitionExtractVisitor.INSTANCE, arg);
-                }
-
+        for (Path path : filesToVisit) {
+            File inputFile = path.toFile();
+            parsed++;
+            System.out.println(LocalTime.now() + " " + parsed + "/" + filesToVisit.size() + " Parsing " + inputFile);
+            File outputFile = library.getOutputFile(inputFile, targetDir);
+            CompilationUnit parse = JpUtils.parse(javaParser, inputFile);
+
+//            try (CsvReports arg = new CsvReports(outputFile)) {
+//                parse.accept(CsvReportVisitor.INSTANCE, arg);
+//            }
+
+            try (ExtractionContext context = new ExtractionContext(outputFile)) {
+                ExtractionEngine.INSTANCE.run(parse, context);
             }
         }
         System.out.println("Took " + DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
@@ -1,24 +1,55 @@
 package com.apixandru.java.main;
 
+import com.apixandru.java.callgraph.CallGraph;
+import com.apixandru.java.callgraph.CallGraphBuilder;
+import com.apixandru.java.metrics.GcSnapshot;
+import com.apixandru.java.metrics.MetricsServer;
+import com.apixandru.java.metrics.RunMetrics;
 import com.apixandru.java.visitors.*;
+import com.apixandru.util.AsyncCsvRowWriterFactory;
+import com.apixandru.util.ColumnarRowWriterFactory;
+import com.apixandru.util.CsvRowWriterFactory;
+import com.apixandru.util.Durability;
+import com.apixandru.util.RowWriterFactory;
+import com.apixandru.util.ShardedCsvRowWriterFactory;
+import com.apixandru.util.SymbolTable;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CacheSpec;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserStuffImpl;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ParsedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.LazyJavaParserStuff;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PerThreadTypeSolvers;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PersistentTypeIndex;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeIndex;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeSolverCacheConfig;
+import io.micrometer.core.instrument.Meter;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static com.apixandru.java.visitors.JpUtils.findPath;
 
@@ -26,79 +57,371 @@ public class MainDataCollectorMultiThreadded {
 
     private static final Logger log = LoggerFactory.getLogger(MainDataCollectorMultiThreadded.class);
 
-    public static void main2(String[] args) throws ExecutionException, InterruptedException {
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    private static final int WRITER_FLUSH_THRESHOLD = 1 << 20;
+    private static final List<String> WRITER_OPTIONS = List.of("--consolidated", "--columnar", "--async-writer");
+    private static final int SOURCE_LOADER_THREADS = 4;
+    private static final String MISSING_SYMBOLS_REPORT = "missing-symbols.csv";
+    private static final int MISSING_SYMBOLS_LIMIT = 1000;
+    private static final String SLOWEST_FILES_REPORT = "slowest-files.csv";
+    private static final int SLOWEST_FILES_LIMIT = 100;
+    private static final String RUN_SUMMARY = "run-summary.csv";
+    private static final String CALL_GRAPH = "call-graph.bin";
+    private static final int REPORT_SHARDS = Runtime.getRuntime().availableProcessors();
+    private static final int SPLIT_MIN_LINES = 4000;
+
+    static final int LAZY_MAX_UNITS = 2000;
+    static final double LAZY_MAX_HEAP_RATIO = 0.7;
+    static final TypeSolverCacheConfig LAZY_CACHE_CONFIG = TypeSolverCacheConfig.of(CacheSpec.maximumSize(LAZY_MAX_UNITS));
+
+    /**
+     * {@code --serve-metrics} serves the meters of the run through {@link MetricsServer} until the run is over, the
+     * slowest files and a summary of every meter are written next to the reports either way.
+     * {@code --call-graph} also saves the calls of the whole library as a {@link CallGraph}, for
+     * {@link CallGraphQuery} to answer who calls what.
+     * {@code --package-affinity} reports the files of a package on the same thread, see {@link PackageAffinityExecutor}.
+     */
+    public static void main2(String[] args) {
         String analysisRoot = "C:/_/workdir/analysis/";
+        List<String> options = Arrays.asList(args);
+        ConfigurableApplicationContext metricsServer = options.contains("--serve-metrics")
+                ? MetricsServer.start()
+                : null;
 
         long start = System.currentTimeMillis();
-        Library library = Libraries.getHotspotLibrary();
+        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        Executor reportExecutor = createReportExecutor(options, executorService);
+        SplitExtraction extraction = createSplitExtraction();
+        try (LibraryModels models = new LibraryModels(analysisRoot)) {
+            collect(getLibrary(options), analysisRoot, options, models, executorService, reportExecutor, extraction);
+        }
+        shutdown(reportExecutor, extraction, executorService);
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+
+        log.info("Took {}", DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Reports every file of the library, resolving what it does not declare itself against the models of its
+     * dependencies, which are built first if they were not yet.
+     */
+    static void collect(Library library, String analysisRoot, List<String> options,
+                        LibraryModels models, ExecutorService executorService, Executor reportExecutor,
+                        SplitExtraction extraction) {
+        checkWriterOptions(options);
+        RunMetrics.INSTANCE.reset();
+        TypeResolutionCache.resetStats();
+        GcSnapshot gcBefore = GcSnapshot.take();
+        List<PerThreadTypeSolvers> dependencies = List.of();
+        if (!library.getDependencies().isEmpty()) {
+            RunMetrics.INSTANCE.enterPhase("dependencies");
+            dependencies = models.getTypeSolvers(library.getDependencies());
+        }
+        boolean lazy = options.contains("--lazy");
+        CallGraphBuilder callGraph = options.contains("--call-graph")
+                ? new CallGraphBuilder()
+                : null;
+
         String targetDir = library.getOutputDir(analysisRoot);
+        RowWriterFactory writerFactory = createWriterFactory(options, targetDir);
+        List<Meter> writerMeters = monitorWriters(writerFactory);
+        Function<File, ExtractionContext> contexts = outputFile -> new ExtractionContext(outputFile, writerFactory, callGraph);
 
-        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        PipelineStage<File> reportStage = new PipelineStage<>("report", reportExecutor, MAX_IN_FLIGHT);
+        DelegatingSymbolResolver dsr = new DelegatingSymbolResolver();
+        PerThreadTypeSolvers typeSolvers;
+        if (lazy) {
+            typeSolvers = submitLazily(library, analysisRoot, targetDir, contexts, extraction, dsr, dependencies, executorService, reportStage);
+        } else {
+            typeSolvers = submitEagerly(library, targetDir, contexts, extraction, dsr, dependencies, executorService, reportStage);
+        }
+        List<Meter> cacheMeters = monitorCaches(library.getKey(), typeSolvers);
+        reportStage.close();
+        reportStage.drain(outputFile -> log.debug("Wrote reports for {}", outputFile));
+        RunMetrics.INSTANCE.enterPhase("close");
+        typeSolvers.logCacheStats();
+        TypeResolutionCache.logStats();
+        MissingSymbols.INSTANCE.writeReport(new File(targetDir, MISSING_SYMBOLS_REPORT), MISSING_SYMBOLS_LIMIT);
+        MissingSymbols.INSTANCE.clear();
+        if (writerFactory instanceof Closeable) {
+            closeWriters((Closeable) writerFactory);
+        }
+        RunMetrics.INSTANCE.remove(writerMeters);
+        if (callGraph != null) {
+            saveCallGraph(callGraph, Paths.get(targetDir, CALL_GRAPH));
+        }
+
+        RunMetrics.INSTANCE.endPhase();
+        RunMetrics.INSTANCE.getSlowestFiles().writeReport(new File(targetDir, SLOWEST_FILES_REPORT), SLOWEST_FILES_LIMIT);
+        RunMetrics.INSTANCE.getSlowestFiles().clear();
+        RunMetrics.INSTANCE.writeSummary(new File(targetDir, RUN_SUMMARY));
+        RunMetrics.INSTANCE.remove(cacheMeters);
+        // the threads of the pools outlive the library, they would keep its solvers and units otherwise
+        dsr.close();
+        typeSolvers.close();
+        library.closeSourceJars();
+        log.info("Symbol table held {} names, {}", SymbolTable.INSTANCE.size(), GcSnapshot.take().describeSince(gcBefore));
+        SymbolTable.INSTANCE.clear();
+    }
+
+    /**
+     * Hits, misses, evictions and size of the found types caches of the solvers of a library, summed over the threads.
+     */
+    static List<Meter> monitorCaches(String library, PerThreadTypeSolvers typeSolvers) {
+        return List.of(
+                RunMetrics.INSTANCE.countFunction("solver.cache.requests", typeSolvers, solvers -> solvers.getFoundTypesStats().hitCount(),
+                        "library", library, "result", "hit"),
+                RunMetrics.INSTANCE.countFunction("solver.cache.requests", typeSolvers, solvers -> solvers.getFoundTypesStats().missCount(),
+                        "library", library, "result", "miss"),
+                RunMetrics.INSTANCE.countFunction("solver.cache.evictions", typeSolvers, solvers -> solvers.getFoundTypesStats().evictionCount(),
+                        "library", library),
+                RunMetrics.INSTANCE.gauge("solver.cache.size", typeSolvers, PerThreadTypeSolvers::getFoundTypesSize, "library", library));
+    }
+
+    /**
+     * {@code --synthetic} collects a generated corpus instead, shaped by the options {@link CorpusSpec#parse} reads.
+     */
+    private static Library getLibrary(List<String> args) {
+        if (args.contains("--synthetic")) {
+            return CorpusGenerator.ensureGenerated(CorpusSpec.parse(args));
+        }
+        return Libraries.getHotspotLibrary();
+    }
+
+    /**
+     * The report phase runs on the threads of the executor service, or with {@code --package-affinity} on threads
+     * of its own, kept for every library of a batch so their caches stay warm.
+     */
+    static Executor createReportExecutor(List<String> options, ExecutorService executorService) {
+        if (options.contains("--package-affinity")) {
+            return new PackageAffinityExecutor("report", Runtime.getRuntime().availableProcessors());
+        }
+        return executorService;
+    }
+
+    /**
+     * The pool the parts of huge files run on, like the report executor kept for every library of a batch.
+     */
+    static SplitExtraction createSplitExtraction() {
+        return new SplitExtraction(ExtractionEngine.INSTANCE, SPLIT_MIN_LINES, Runtime.getRuntime().availableProcessors());
+    }
+
+    static void shutdown(Executor reportExecutor, SplitExtraction extraction, ExecutorService executorService) {
+        if (reportExecutor instanceof PackageAffinityExecutor) {
+            ((PackageAffinityExecutor) reportExecutor).close();
+        }
+        extraction.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * The directory of the file, the files of a package share their imports and sibling types.
+     */
+    public static String getPackageAffinity(Path path) {
+        Path directory = path.getParent();
+        return directory == null ? "" : directory.toString();
+    }
+
+    /**
+     * {@code --consolidated} writes one set of sharded files per report kind for the whole library,
+     * {@code --columnar} writes binary reports that {@link ColumnarToCsv} turns back into CSV files,
+     * {@code --async-writer} keeps one file per report and source file but writes them on a dedicated thread.
+     * Only one of them can be given.
+     */
+    private static RowWriterFactory createWriterFactory(List<String> args, String targetDir) {
+        if (args.contains("--consolidated")) {
+            return new ShardedCsvRowWriterFactory(targetDir, REPORT_SHARDS, Durability.BATCHED);
+        }
+        if (args.contains("--columnar")) {
+            return new ColumnarRowWriterFactory(targetDir);
+        }
+        if (args.contains("--async-writer")) {
+            return new AsyncCsvRowWriterFactory(Durability.BATCHED, WRITER_FLUSH_THRESHOLD);
+        }
+        return CsvRowWriterFactory.BATCHED;
+    }
+
+    /**
+     * The rows still queued for the writer thread, when the reports are written on one.
+     */
+    private static List<Meter> monitorWriters(RowWriterFactory writerFactory) {
+        if (writerFactory instanceof AsyncCsvRowWriterFactory) {
+            return List.of(RunMetrics.INSTANCE.gaugeQueue("report-writer", "pending", (AsyncCsvRowWriterFactory) writerFactory,
+                    AsyncCsvRowWriterFactory::getPending));
+        }
+        return List.of();
+    }
 
-        List<File> srcDirs = library.getSrcDirs();
-
-        LinkedList<File> filesToVisit = new LinkedList<>(srcDirs);
-        List<Future<CompilationUnit>> futureCompilationUnits = new LinkedList<>();
-        List<CompilationUnit> compilationUnits = new LinkedList<>();
-
-        int parsed = 0;
-        while (!filesToVisit.isEmpty()) {
-            File inputFile = filesToVisit.removeFirst();
-            if (inputFile.isDirectory()) {
-                // noinspection ConstantConditions
-                filesToVisit.addAll(Arrays.asList(inputFile.listFiles()));
-            } else if (!inputFile.getName().endsWith(".java")) {
-                log.info("Skipping " + inputFile);
-            } else {
-                parsed++;
-                log.info(parsed + "/" + filesToVisit.size() + " Parsing " + inputFile);
-                futureCompilationUnits.add(executorService.submit(new CompilationUnitCallable(inputFile)));
+    /**
+     * Each of the writer options picks another way of writing the reports, checked before any library is built.
+     */
+    private static void checkWriterOptions(List<String> args) {
+        List<String> writers = new ArrayList<>();
+        for (String option : WRITER_OPTIONS) {
+            if (args.contains(option)) {
+                writers.add(option);
             }
         }
+        if (writers.size() > 1) {
+            throw new IllegalArgumentException("At most one of " + WRITER_OPTIONS + ", not " + writers);
+        }
+    }
+
+    private static void closeWriters(Closeable writerFactory) {
+        try {
+            writerFactory.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void saveCallGraph(CallGraphBuilder builder, Path file) {
+        CallGraph callGraph = builder.build();
+        callGraph.saveAndVerify(file);
+        log.info("Call graph of {} methods and {} calls saved to {}", callGraph.size(), callGraph.getEdgeCount(), file);
+    }
 
-        waitToFinish(futureCompilationUnits, compilationUnits);
+    /**
+     * The biggest files are reported first, so the run does not end waiting on one of them.
+     */
+    private static PerThreadTypeSolvers submitEagerly(Library library, String targetDir, Function<File, ExtractionContext> contexts,
+                                                      SplitExtraction extraction, DelegatingSymbolResolver dsr,
+                                                      List<PerThreadTypeSolvers> dependencies,
+                                                      ExecutorService executorService, PipelineStage<File> reportStage) {
+        RunMetrics.INSTANCE.enterPhase("parse");
+        PipelineStage<CompilationUnit> parseStage = new PipelineStage<>("parse", executorService, MAX_IN_FLIGHT);
+        List<CompilationUnit> compilationUnits;
+        try (SourceLoader sourceLoader = new SourceLoader(SOURCE_LOADER_THREADS)) {
+            SourceFiles.discover(library.getSrcPaths(),
+                    path -> parseStage.submit(path.toString(), new CompilationUnitCallable(sourceLoader.load(path))));
+            parseStage.close();
+            compilationUnits = parseStage.drain();
+        }
 
         JavaParserStuffImpl jps = new JavaParserStuffImpl(compilationUnits);
-        JavaSymbolSolver dsr = new JavaSymbolSolver(new ParsedTypeSolver(srcDirs, jps));
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(jps, library.getCacheConfig().orElse(TypeSolverCacheConfig.UNBOUNDED), dependencies);
+        dsr.setSr(typeSolvers::get);
         compilationUnits.forEach(dsr::inject);
 
-        AtomicInteger counter = new AtomicInteger();
-        int total = compilationUnits.size();
+        RunMetrics.INSTANCE.enterPhase("report");
+        List<CompilationUnit> largestFirst = new ArrayList<>(compilationUnits);
+        largestFirst.sort(Comparator.comparingInt(SplitExtraction::countLines).reversed());
+        for (CompilationUnit compilationUnit : largestFirst) {
+            Path path = findPath(compilationUnit);
+            reportStage.submit(path.toString(), getPackageAffinity(path), () -> extracted(library, targetDir, contexts, extraction, path, compilationUnit));
+        }
+        return typeSolvers;
+    }
 
-        List<Future<Object>> stillProcessing = new ArrayList<>();
-        for (CompilationUnit compilationUnit : compilationUnits) {
-            @SuppressWarnings("rawtypes")
-            Future submit = executorService.submit(() -> extracted(library, targetDir, counter, total, compilationUnit));
-            stillProcessing.add(submit);
+    /**
+     * Only the type index survives the parse phase, the report phase parses each file again on demand, the biggest
+     * files first.
+     */
+    private static PerThreadTypeSolvers submitLazily(Library library, String analysisRoot, String targetDir, Function<File, ExtractionContext> contexts,
+                                                     SplitExtraction extraction, DelegatingSymbolResolver dsr,
+                                                     List<PerThreadTypeSolvers> dependencies,
+                                                     ExecutorService executorService, PipelineStage<File> reportStage) {
+        RunMetrics.INSTANCE.enterPhase("index");
+        TypeIndex index = buildIndex(library, analysisRoot, executorService);
+        LazyJavaParserStuff jps = new LazyJavaParserStuff(index, path -> parseAndInject(path, dsr), LAZY_MAX_UNITS, LAZY_MAX_HEAP_RATIO);
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(jps, library.getCacheConfig().orElse(LAZY_CACHE_CONFIG), dependencies);
+        dsr.setSr(typeSolvers::get);
+
+        RunMetrics.INSTANCE.enterPhase("report");
+        for (Path path : largestFirst(index.getFiles())) {
+            reportStage.submit(path.toString(), getPackageAffinity(path), () -> extracted(library, targetDir, contexts, extraction, path, jps.findCompilationUnit(path).get()));
         }
+        return typeSolvers;
+    }
 
-        waitToFinish(stillProcessing, new ArrayList<>());
+    /**
+     * The index is saved next to the reports and only the files that changed since it was written are parsed. The
+     * entry of a changed file is dropped before it is parsed again, a file that no longer parses is left out of the
+     * index instead of keeping types that may since have moved to another file.
+     */
+    private static TypeIndex buildIndex(Library library, String analysisRoot, ExecutorService executorService) {
+        Path indexFile = library.getIndexFile(analysisRoot);
+        PersistentTypeIndex persistentIndex = PersistentTypeIndex.load(indexFile, library.getKey());
+        Set<String> found = ConcurrentHashMap.newKeySet();
 
-        executorService.shutdown();
+        PipelineStage<PersistentTypeIndex.Entry> parseStage = new PipelineStage<>("index", executorService, MAX_IN_FLIGHT);
+        try (SourceLoader sourceLoader = new SourceLoader(SOURCE_LOADER_THREADS)) {
+            SourceFiles.discover(library.getSrcPaths(), path -> {
+                found.add(TypeIndex.toKey(path));
+                if (persistentIndex.findUpToDate(path).isEmpty()) {
+                    persistentIndex.remove(TypeIndex.toKey(path));
+                    Future<SourceLoader.Source> source = sourceLoader.load(path);
+                    parseStage.submit(path.toString(), () -> indexEntry(new CompilationUnitCallable(source)));
+                }
+            });
+            parseStage.close();
+            parseStage.drain(persistentIndex::put);
+        }
+        persistentIndex.retainAll(found);
+        persistentIndex.save(indexFile);
+        return persistentIndex.toTypeIndex();
+    }
 
-        log.info("Took {}", DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
+    static PersistentTypeIndex.Entry indexEntry(Path path) {
+        return indexEntry(new CompilationUnitCallable(path));
     }
 
-    private static void extracted(Library library, String targetDir, AtomicInteger counter, int total, CompilationUnit compilationUnit) {
-        Path path = findPath(compilationUnit);
-        File inputFile = path.toFile();
-        log.info("[{}/{}] Visiting file {}", counter.incrementAndGet(), total, path);
-        File outputFile = library.getOutputFile(inputFile, targetDir);
-        generateReports(compilationUnit, outputFile);
+    /**
+     * The entry is made of the bytes the unit was parsed from, the file is not read again to hash it.
+     */
+    private static PersistentTypeIndex.Entry indexEntry(CompilationUnitCallable parser) {
+        SourceLoader.Source source = parser.getSource();
+        CompilationUnit compilationUnit = CompilationUnitCallable.parse(source);
+        return source.toIndexEntry(TypeIndex.getTypeNames(compilationUnit));
     }
 
-    private static void generateReports(CompilationUnit compilationUnit, File outputFile) {
+    static CompilationUnit parseAndInject(Path path, DelegatingSymbolResolver dsr) {
+        CompilationUnit compilationUnit = new CompilationUnitCallable(path).call();
+        dsr.inject(compilationUnit);
+        return compilationUnit;
+    }
+
+    private static List<Path> largestFirst(Collection<String> files) {
+        Map<Path, Long> sizes = new LinkedHashMap<>();
+        for (String file : files) {
+            Path path = TypeIndex.toPath(file);
+            try {
+                sizes.put(path, Files.size(path));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot size " + path, ex);
+            }
+        }
+        List<Path> paths = new ArrayList<>(sizes.keySet());
+        paths.sort(Comparator.comparing(sizes::get, Comparator.reverseOrder()));
+        return paths;
+    }
+
+    private static File extracted(Library library, String targetDir, Function<File, ExtractionContext> contexts,
+                                  SplitExtraction extraction, Path path, CompilationUnit compilationUnit) {
+        File outputFile = library.getOutputFile(path, targetDir);
+        generateReports(path.toString(), compilationUnit, contexts.apply(outputFile), extraction);
+        return outputFile;
+    }
+
+    /**
+     * Rows are buffered while resolving, writing is the time it takes to close the reports.
+     */
+    private static void generateReports(String file, CompilationUnit compilationUnit, ExtractionContext context,
+                                        SplitExtraction extraction) {
 //        try (CsvReports arg = new CsvReports(outputFile)) {
 //            compilationUnit.accept(CsvReportVisitor.INSTANCE, arg);
 //        }
-        try (MethodCsvReport methodCsvReport = new MethodCsvReport(outputFile)) {
-            compilationUnit.accept(MethodResolverVisitor.INSTANCE, methodCsvReport);
-        }
-        try (TypesCsvReport arg = new TypesCsvReport(outputFile)) {
-            compilationUnit.accept(SymbolsExtractVisitor.INSTANCE, arg);
-        }
-        try (DefCsvReport arg = new DefCsvReport(outputFile)) {
-            compilationUnit.accept(DefinitionExtractVisitor.INSTANCE, arg);
+        long start = System.nanoTime();
+        try {
+            extraction.run(compilationUnit, context);
+        } finally {
+            long resolved = System.nanoTime();
+            context.close();
+            RunMetrics.INSTANCE.recordStage(file, RunMetrics.Stage.RESOLVE, resolved - start);
+            RunMetrics.INSTANCE.recordStage(file, RunMetrics.Stage.WRITE, System.nanoTime() - resolved);
         }
     }
 
@@ -111,29 +434,4 @@ public class MainDataCollectorMultiThreadded {
         return new JavaParser(configuration);
     }
 
-    private static <T> void waitToFinish(List<Future<T>> futureUnits, List<T> units) throws ExecutionException, InterruptedException {
-        int processed = 0;
-        while (!futureUnits.isEmpty()) {
-            sleepInterruptable(1000);
-            Iterator<Future<T>> fit = futureUnits.iterator();
-            while (fit.hasNext()) {
-                Future<T> next = fit.next();
-                if (next.isDone()) {
-                    units.add(next.get());
-                    fit.remove();
-                    processed++;
-                }
-            }
-            log.info("Processed {}/{}", futureUnits.size(), processed);
-        }
-    }
-
-    private static void sleepInterruptable(int millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-    }
-
 }
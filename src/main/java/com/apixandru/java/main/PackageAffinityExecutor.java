@@ -0,0 +1,161 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.metrics.RunMetrics;
+import io.micrometer.core.instrument.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gives every worker its own queue and sends all the tasks of an affinity, the files of a package, to the queue of
+ * the worker it was first given to. The files of a package name the same imports and sibling types, so the
+ * per-thread caches of the solvers and resolutions stay warm for them instead of being filled on every thread.
+ * <p>
+ * A worker runs its own tasks in the order they were queued, and once it has none left steals the most recently
+ * queued task of another worker. Tasks are submitted largest first, so thieves take the smallest ones and the
+ * owners keep their packages.
+ * <p>
+ * Only whole files go through it, the parts of the files {@link com.apixandru.java.visitors.SplitExtraction} splits
+ * run on its own pool whichever worker the file was given to.
+ */
+public class PackageAffinityExecutor implements AffinityExecutor, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PackageAffinityExecutor.class);
+
+    private final String name;
+    private final List<ConcurrentLinkedDeque<Runnable>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Semaphore queued = new Semaphore(0);
+    private final Map<String, Integer> workersByAffinity = new ConcurrentHashMap<>();
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder stolen = new LongAdder();
+    private final List<Meter> meters;
+
+    private volatile boolean shutdown;
+
+    public PackageAffinityExecutor(String name, int threads) {
+        this.name = name;
+        for (int i = 0; i < threads; i++) {
+            queues.add(new ConcurrentLinkedDeque<>());
+        }
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            Thread thread = new Thread(() -> work(worker), name + "-" + i);
+            thread.setDaemon(true);
+            workers.add(thread);
+            thread.start();
+        }
+        meters = List.of(
+                RunMetrics.INSTANCE.countFunction("scheduler.tasks", executed, LongAdder::sum, "executor", name, "kind", "executed"),
+                RunMetrics.INSTANCE.countFunction("scheduler.tasks", stolen, LongAdder::sum, "executor", name, "kind", "stolen"));
+    }
+
+    /**
+     * Tasks without an affinity are spread over the workers in turn.
+     */
+    @Override
+    public void execute(Runnable task) {
+        enqueue(Math.floorMod(nextWorker.getAndIncrement(), queues.size()), task);
+    }
+
+    @Override
+    public void execute(String affinity, Runnable task) {
+        int worker = workersByAffinity.computeIfAbsent(affinity,
+                key -> Math.floorMod(nextWorker.getAndIncrement(), queues.size()));
+        enqueue(worker, task);
+    }
+
+    private void enqueue(int worker, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException(name + " is shut down");
+        }
+        queues.get(worker).addLast(task);
+        queued.release();
+    }
+
+    /**
+     * Every permit stands for a queued task, a worker that got one finds a task somewhere unless the executor was
+     * shut down and every queue is empty.
+     */
+    private void work(int worker) {
+        while (true) {
+            queued.acquireUninterruptibly();
+            Runnable task = take(worker);
+            if (task == null) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException | Error ex) {
+                log.error("[{}] Task failed", name, ex);
+            }
+            executed.increment();
+        }
+    }
+
+    private Runnable take(int worker) {
+        while (true) {
+            Runnable task = queues.get(worker).pollFirst();
+            if (task != null) {
+                return task;
+            }
+            task = steal(worker);
+            if (task != null) {
+                stolen.increment();
+                return task;
+            }
+            if (shutdown) {
+                return null;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private Runnable steal(int thief) {
+        for (int i = 1; i < queues.size(); i++) {
+            Runnable task = queues.get((thief + i) % queues.size()).pollLast();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getStolen() {
+        return stolen.sum();
+    }
+
+    /**
+     * The workers finish the tasks already queued and stop, the meters of the executor are removed.
+     */
+    @Override
+    public void close() {
+        shutdown = true;
+        queued.release(workers.size());
+        RunMetrics.INSTANCE.remove(meters);
+        log.info("[{}] Ran {} tasks of {} affinities on {} workers, {} of them stolen", name, executed.sum(),
+                workersByAffinity.size(), workers.size(), stolen.sum());
+    }
+
+}
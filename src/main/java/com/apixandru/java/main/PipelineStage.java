@@ -0,0 +1,204 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.metrics.RunMetrics;
+import io.micrometer.core.instrument.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A stage of the collector pipeline. Tasks are handed to the executor as they are submitted, at most
+ * {@code maxInFlight} of them being queued or running at any time, and each result is handed to the consumer
+ * the moment its task completes. A failing task is logged and counted, it does not stop the stage.
+ */
+public class PipelineStage<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineStage.class);
+
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private final String name;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    private final BlockingQueue<Outcome<T>> completed = new LinkedBlockingQueue<>();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final List<Meter> gauges = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    private int consumed;
+    private int failed;
+
+    public PipelineStage(String name, Executor executor, int maxInFlight) {
+        this.name = name;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        gauges.add(RunMetrics.INSTANCE.gaugeQueue(name, "in-flight", this, PipelineStage::getInFlight));
+        gauges.add(RunMetrics.INSTANCE.gaugeQueue(name, "completed", this, PipelineStage::getCompleted));
+    }
+
+    /**
+     * Blocks while the stage already has {@code maxInFlight} tasks queued or running.
+     */
+    public void submit(String description, Callable<T> task) {
+        submit(description, null, task);
+    }
+
+    /**
+     * Same as {@link #submit(String, Callable)}, tasks of the same affinity going to the same thread when the
+     * executor is an {@link AffinityExecutor}. A task the executor rejects is not counted as submitted, so
+     * {@link #drain(Consumer)} does not wait for it.
+     */
+    public void submit(String description, String affinity, Callable<T> task) {
+        if (closed) {
+            throw new IllegalStateException("Stage " + name + " no longer accepts tasks");
+        }
+        acquire();
+        submitted.incrementAndGet();
+        Runnable runnable = () -> run(description, task);
+        try {
+            if (affinity != null && executor instanceof AffinityExecutor) {
+                ((AffinityExecutor) executor).execute(affinity, runnable);
+            } else {
+                executor.execute(runnable);
+            }
+        } catch (RuntimeException | Error ex) {
+            submitted.decrementAndGet();
+            inFlight.release();
+            throw ex;
+        }
+    }
+
+    private void acquire() {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting to " + name, e);
+        }
+    }
+
+    /**
+     * Whatever the task throws, errors included, is an outcome, so {@link #drain(Consumer)} never waits on a task
+     * that is gone.
+     */
+    private void run(String description, Callable<T> task) {
+        Outcome<T> outcome;
+        try {
+            outcome = new Outcome<>(description, task.call(), null);
+        } catch (Throwable ex) {
+            outcome = new Outcome<>(description, null, ex);
+        } finally {
+            inFlight.release();
+        }
+        completed.add(outcome);
+    }
+
+    /**
+     * Signals that no more tasks will be submitted, so that {@link #drain(Consumer)} can return.
+     */
+    public void close() {
+        closed = true;
+        completed.add(Outcome.end());
+    }
+
+    /**
+     * Consumes results in completion order until the stage is closed and every submitted task has finished. The
+     * gauges of the stage go with it, so the next stage of the same name is the one observed.
+     */
+    public void drain(Consumer<T> consumer) {
+        int total = -1;
+        while (total == -1 || consumed + failed < total) {
+            Outcome<T> outcome = take();
+            if (outcome.isEnd()) {
+                total = submitted.get();
+                continue;
+            }
+            if (outcome.error != null) {
+                failed++;
+                log.error("[{}] Failed {}", name, outcome.description, outcome.error);
+            } else {
+                consumed++;
+                consumer.accept(outcome.value);
+            }
+            logProgress(false);
+        }
+        logProgress(true);
+        RunMetrics.INSTANCE.remove(gauges);
+    }
+
+    public List<T> drain() {
+        List<T> results = new ArrayList<>();
+        drain(results::add);
+        return results;
+    }
+
+    private Outcome<T> take() {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while draining " + name, e);
+        }
+    }
+
+    private void logProgress(boolean done) {
+        int finished = consumed + failed;
+        if (done || finished % PROGRESS_INTERVAL == 0) {
+            log.info("[{}] {}/{} finished, {} failed", name, finished, submitted.get(), failed);
+        }
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Tasks queued in the executor or running.
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Results waiting for {@link #drain(Consumer)} to consume them.
+     */
+    public int getCompleted() {
+        return completed.size();
+    }
+
+    private static final class Outcome<T> {
+
+        private final String description;
+        private final T value;
+        private final Throwable error;
+
+        private Outcome(String description, T value, Throwable error) {
+            this.description = description;
+            this.value = value;
+            this.error = error;
+        }
+
+        static <T> Outcome<T> end() {
+            return new Outcome<>(null, null, null);
+        }
+
+        boolean isEnd() {
+            return description == null;
+        }
+
+    }
+
+}
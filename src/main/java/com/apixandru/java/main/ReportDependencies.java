@@ -0,0 +1,132 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.visitors.AbstractCsvReport;
+import com.apixandru.util.CsvUtils;
+
+import java.io.File;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Which source files reference which types, as read back from the {@code types} and {@code lines} reports.
+ * Every reference is also recorded under each of its prefixes, so that a change to {@code java.util.Map} is seen
+ * by the files that only mention {@code java.util.Map.Entry}.
+ * <p>
+ * The names a file failed to resolve are read back from its {@code errors} and {@code packages} reports. Those only
+ * hold the text of the node, not what it stands for, so every capitalized identifier in it is recorded as a simple
+ * name, and a change to {@code p.Foo} is seen by every file that failed on a {@code Foo}. That re-reports a few files
+ * too many rather than leave stale errors behind.
+ */
+class ReportDependencies {
+
+    private static final int TYPES_TYPE = 2;
+    private static final int LINES_OWNER = 2;
+    private static final int LINES_ARG_TYPES = 4;
+    private static final int ERRORS_NODE = 2;
+    private static final int ERRORS_ERROR = 3;
+    private static final int PACKAGES_PACKAGE = 2;
+    private static final int PACKAGES_TYPE = 3;
+    private static final List<String> REPORTS = List.of("types", "lines", "def");
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
+
+    private final Map<String, Set<String>> filesByType = new HashMap<>();
+    private final Map<String, Set<String>> typesByFile = new HashMap<>();
+    private final Map<String, Set<String>> filesByMissingName = new HashMap<>();
+    private final Map<String, Set<String>> missingNamesByFile = new HashMap<>();
+
+    void load(String sourceFile, File fakeOutput) {
+        remove(sourceFile);
+        Set<String> types = new HashSet<>();
+        readColumns(AbstractCsvReport.getReportFile(fakeOutput, "types"), types, TYPES_TYPE);
+        readColumns(AbstractCsvReport.getReportFile(fakeOutput, "lines"), types, LINES_OWNER, LINES_ARG_TYPES);
+        add(sourceFile, types, typesByFile, filesByType);
+
+        Set<String> missingNames = new HashSet<>();
+        for (String report : REPORTS) {
+            readNames(AbstractCsvReport.getReportFile(fakeOutput, report + ".errors"), missingNames, ERRORS_NODE, ERRORS_ERROR);
+            readNames(AbstractCsvReport.getReportFile(fakeOutput, report + ".packages"), missingNames, PACKAGES_PACKAGE, PACKAGES_TYPE);
+        }
+        add(sourceFile, missingNames, missingNamesByFile, filesByMissingName);
+    }
+
+    private static void add(String sourceFile, Set<String> names, Map<String, Set<String>> namesByFile,
+                            Map<String, Set<String>> filesByName) {
+        namesByFile.put(sourceFile, names);
+        for (String name : names) {
+            filesByName.computeIfAbsent(name, key -> new HashSet<>()).add(sourceFile);
+        }
+    }
+
+    private static void readColumns(File report, Set<String> types, int... columns) {
+        if (!report.isFile()) {
+            return;
+        }
+        CsvUtils.read(report, row -> {
+            for (int column : columns) {
+                if (row.length > column) {
+                    for (String type : row[column].split(",")) {
+                        addWithPrefixes(type.trim(), types);
+                    }
+                }
+            }
+        });
+    }
+
+    private static void readNames(File report, Set<String> names, int... columns) {
+        if (!report.isFile()) {
+            return;
+        }
+        CsvUtils.read(report, row -> {
+            for (int column : columns) {
+                if (row.length > column) {
+                    Matcher matcher = IDENTIFIER.matcher(row[column]);
+                    while (matcher.find()) {
+                        if (Character.isUpperCase(matcher.group().charAt(0))) {
+                            names.add(matcher.group());
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static void addWithPrefixes(String type, Set<String> types) {
+        for (String prefix = type; !prefix.isEmpty(); prefix = prefix.substring(0, Math.max(prefix.lastIndexOf('.'), 0))) {
+            types.add(prefix);
+        }
+    }
+
+    void remove(String sourceFile) {
+        remove(sourceFile, typesByFile, filesByType);
+        remove(sourceFile, missingNamesByFile, filesByMissingName);
+    }
+
+    private static void remove(String sourceFile, Map<String, Set<String>> namesByFile, Map<String, Set<String>> filesByName) {
+        Set<String> names = namesByFile.remove(sourceFile);
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            Set<String> files = filesByName.get(name);
+            files.remove(sourceFile);
+            if (files.isEmpty()) {
+                filesByName.remove(name);
+            }
+        }
+    }
+
+    /**
+     * The files that reference one of the types, or failed to resolve a name that may stand for one of them.
+     */
+    Set<String> findReferencing(Collection<String> typeNames) {
+        Set<String> files = new TreeSet<>();
+        for (String typeName : typeNames) {
+            files.addAll(filesByType.getOrDefault(typeName, Set.of()));
+            String simpleName = typeName.substring(typeName.lastIndexOf('.') + 1);
+            files.addAll(filesByMissingName.getOrDefault(simpleName, Set.of()));
+        }
+        return files;
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.visitors.DelegatingSymbolResolver;
+import com.apixandru.java.visitors.ExtractionContext;
+import com.apixandru.java.visitors.ExtractionEngine;
+import com.apixandru.java.visitors.MissingSymbols;
+import com.apixandru.util.DiscardingRowWriterFactory;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserStuffImpl;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PerThreadTypeSolvers;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeSolverCacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.apixandru.java.visitors.JpUtils.findPath;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reports the same library with 1, 2, 4... worker threads, up to the number of cores, and checks that the throughput
+ * grows near linearly with the threads: every thread count must reach {@link #MIN_EFFICIENCY} of the single thread
+ * throughput times the number of threads, or the benchmark fails listing the ones that did not.
+ * <p>
+ * A first single threaded run warms up the JIT and is discarded, then every thread count is run
+ * {@value #ROUNDS} times and its best throughput kept. The units are parsed again and the missing symbols forgotten
+ * before each run so that no run profits from what the previous one resolved, and the rows are discarded so that
+ * only resolution is measured. Given {@link CorpusSpec} options, {@code --files=50000} for instance, it runs against
+ * a generated corpus instead of commons-io.
+ */
+public class ResolutionScalingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ResolutionScalingBenchmark.class);
+
+    private static final int MAX_IN_FLIGHT = 1024;
+    private static final int ROUNDS = 3;
+    private static final double MIN_EFFICIENCY = 0.7;
+
+    public static void main(String[] args) {
+        Library library = args.length == 0
+                ? Libraries.getCommonsLangLibrary()
+                : CorpusGenerator.ensureGenerated(CorpusSpec.parse(Arrays.asList(args)));
+        List<Path> files = SourceFiles.find(library.getSrcPaths());
+
+        log.info("Warm-up: {} files/s on 1 thread, discarded", Math.round(run(files, 1)));
+        Map<Integer, Double> throughputs = new LinkedHashMap<>();
+        for (int threads : getThreadCounts(Runtime.getRuntime().availableProcessors())) {
+            double best = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                best = Math.max(best, run(files, threads));
+            }
+            throughputs.put(threads, best);
+        }
+        checkScaling(throughputs);
+    }
+
+    /**
+     * Logs the speedup and efficiency of every thread count over a single thread, and fails when one of them is
+     * below {@link #MIN_EFFICIENCY}.
+     */
+    static void checkScaling(Map<Integer, Double> throughputs) {
+        double singleThreaded = throughputs.get(1);
+        List<String> belowLinear = new ArrayList<>();
+        log.info("threads  files/s  speedup  efficiency");
+        throughputs.forEach((threads, throughput) -> {
+            double speedup = throughput / singleThreaded;
+            double efficiency = speedup / threads;
+            log.info(String.format(Locale.ROOT, "%7d  %7d  %6.2fx  %9d%%", threads, Math.round(throughput), speedup,
+                    Math.round(efficiency * 100)));
+            if (efficiency < MIN_EFFICIENCY) {
+                belowLinear.add(threads + " threads at " + Math.round(efficiency * 100) + "%");
+            }
+        });
+        if (!belowLinear.isEmpty()) {
+            throw new IllegalStateException("Scaling below " + Math.round(MIN_EFFICIENCY * 100) + "% efficiency: " + belowLinear);
+        }
+        log.info("Scaling within {}% of linear up to {} threads", Math.round((1 - MIN_EFFICIENCY) * 100),
+                Collections.max(throughputs.keySet()));
+    }
+
+    static List<Integer> getThreadCounts(int maxThreads) {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+        return threadCounts;
+    }
+
+    /**
+     * @return the number of files reported per second
+     */
+    private static double run(List<Path> files, int threads) {
+        List<CompilationUnit> compilationUnits = files.parallelStream()
+                .map(path -> new CompilationUnitCallable(path).call())
+                .collect(toList());
+        MissingSymbols.INSTANCE.forgetMissing();
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(new JavaParserStuffImpl(compilationUnits), TypeSolverCacheConfig.UNBOUNDED);
+        DelegatingSymbolResolver dsr = new DelegatingSymbolResolver();
+        dsr.setSr(typeSolvers::get);
+        compilationUnits.forEach(dsr::inject);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        PipelineStage<CompilationUnit> reportStage = new PipelineStage<>("report-" + threads, executorService, MAX_IN_FLIGHT);
+        long start = System.nanoTime();
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            reportStage.submit(findPath(compilationUnit).toString(), () -> report(compilationUnit));
+        }
+        reportStage.close();
+        reportStage.drain();
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+
+        return compilationUnits.size() / (elapsed / 1e9);
+    }
+
+    static CompilationUnit report(CompilationUnit compilationUnit) {
+        try (ExtractionContext context = new ExtractionContext(findPath(compilationUnit).toFile(), DiscardingRowWriterFactory.INSTANCE)) {
+            ExtractionEngine.INSTANCE.run(compilationUnit, context);
+        }
+        return compilationUnit;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.apixandru.java.main;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Finds the {@code .java} files below a set of source roots. Every root and every directory below it is listed
+ * by its own fork-join task, and files are handed to the sink as soon as they are found, from whichever thread
+ * found them.
+ */
+public final class SourceFiles {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceFiles.class);
+
+    private SourceFiles() {
+    }
+
+    public static void discover(List<Path> roots, Consumer<Path> sink) {
+        LongAdder found = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        Consumer<Path> countingSink = path -> {
+            found.increment();
+            sink.accept(path);
+        };
+        List<DirectoryTask> tasks = roots.stream()
+                .map(root -> new DirectoryTask(root, countingSink, skipped))
+                .collect(toList());
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        log.info("Found {} source files under {} roots, skipped {} other files", found, roots.size(), skipped);
+    }
+
+    /**
+     * Same as {@link #discover(List, Consumer)} but collects the files, sorted, for callers that are not thread safe.
+     */
+    public static List<Path> find(List<Path> roots) {
+        ConcurrentLinkedQueue<Path> files = new ConcurrentLinkedQueue<>();
+        discover(roots, files::add);
+        List<Path> sorted = new ArrayList<>(files);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    static boolean isSourceFile(Path file) {
+        return file.getFileName().toString().endsWith(".java");
+    }
+
+    private static final class DirectoryTask extends RecursiveAction {
+
+        private final Path directory;
+        private final Consumer<Path> sink;
+        private final LongAdder skipped;
+
+        DirectoryTask(Path directory, Consumer<Path> sink, LongAdder skipped) {
+            this.directory = directory;
+            this.sink = sink;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> children = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry)) {
+                        children.add(new DirectoryTask(entry, sink, skipped));
+                    } else if (isSourceFile(entry)) {
+                        sink.accept(entry);
+                    } else {
+                        skipped.increment();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot list " + directory, e);
+            }
+            invokeAll(children);
+        }
+
+    }
+
+}
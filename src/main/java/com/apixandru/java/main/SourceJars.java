@@ -0,0 +1,92 @@
+package com.apixandru.java.main;
+
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens source jars as read-only zip file systems, so their entries are discovered, read and parsed like the files of
+ * a directory without ever being extracted to disk. Each entry is inflated by the thread that reads it, several
+ * entries of the same jar are read in parallel.
+ * <p>
+ * A jar is opened once and stays open until the library it belongs to is done with, see
+ * {@link Library#closeSourceJars()}. Its file system is registered, which is what lets {@link TypeIndex#toPath} find
+ * an entry again from its key while it is open.
+ */
+public final class SourceJars {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceJars.class);
+
+    private static final String SOURCES_CLASSIFIER = "-sources.jar";
+
+    private static final Map<Path, Path> roots = new ConcurrentHashMap<>();
+
+    private SourceJars() {
+    }
+
+    /**
+     * @return the root directory of the jar
+     */
+    public static Path open(Path jar) {
+        return roots.computeIfAbsent(jar.toAbsolutePath().normalize(), SourceJars::newFileSystem);
+    }
+
+    /**
+     * Closes the jar if it is open, the paths into it can no longer be read afterwards.
+     */
+    public static void close(Path jar) {
+        Path root = roots.remove(jar.toAbsolutePath().normalize());
+        if (root == null) {
+            return;
+        }
+        try {
+            root.getFileSystem().close();
+            log.info("Closed source jar {}", jar);
+        } catch (IOException ex) {
+            log.warn("Cannot close source jar {}", jar, ex);
+        }
+    }
+
+    private static Path newFileSystem(Path jar) {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No source jar at " + jar);
+        }
+        URI uri = URI.create("jar:" + jar.toUri());
+        FileSystem fileSystem;
+        try {
+            fileSystem = FileSystems.newFileSystem(uri, Map.of());
+        } catch (FileSystemAlreadyExistsException ex) {
+            fileSystem = FileSystems.getFileSystem(uri);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open source jar " + jar, ex);
+        }
+        log.info("Opened source jar {}", jar);
+        return fileSystem.getPath("/");
+    }
+
+    /**
+     * Where Maven puts the sources of an artifact in the local repository, {@code maven.repo.local} when set and
+     * {@code ~/.m2/repository} otherwise.
+     */
+    public static Path findInLocalRepository(String group, String artifact, String version) {
+        String localRepository = System.getProperty("maven.repo.local",
+                Paths.get(System.getProperty("user.home"), ".m2", "repository").toString());
+        return Paths.get(localRepository, group.split("\\."))
+                .resolve(artifact)
+                .resolve(version)
+                .resolve(artifact + "-" + version + SOURCES_CLASSIFIER);
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.apixandru.java.main;
+
+import com.github.javaparser.Provider;
+import com.github.javaparser.Providers;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PersistentTypeIndex;
+
+import java.io.CharArrayReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads source files on its own threads, so the parse threads find their input already decoded instead of waiting
+ * on the disk. Files of at least {@value #MAP_THRESHOLD} bytes are memory mapped, smaller ones are read with a
+ * single channel read, and either way the bytes are decoded to chars in one pass. Entries of a source jar cannot be
+ * mapped, they are inflated by a channel read whatever their size.
+ * <p>
+ * The bytes are hashed on the way, so that indexing a file does not read it a second time, see
+ * {@link PersistentTypeIndex.Entry}.
+ */
+public class SourceLoader implements Closeable {
+
+    static final int MAP_THRESHOLD = 1 << 18;
+
+    private static final ThreadLocal<CharsetDecoder> decoder = ThreadLocal.withInitial(() -> UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    private final ExecutorService executor;
+
+    public SourceLoader(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "source-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Files are read in the order they are requested.
+     */
+    public Future<Source> load(Path path) {
+        return executor.submit(() -> read(path));
+    }
+
+    public static Source read(Path path) {
+        try (FileChannel channel = FileChannel.open(path)) {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            long size = channel.size();
+            ByteBuffer bytes;
+            if (size >= MAP_THRESHOLD && path.getFileSystem() == FileSystems.getDefault()) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+                    // keep reading
+                }
+                bytes.flip();
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(bytes.duplicate());
+            return new Source(path, bytes.remaining(), lastModified, crc.getValue(), decode(bytes));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read " + path, ex);
+        }
+    }
+
+    private static CharBuffer decode(ByteBuffer bytes) throws CharacterCodingException {
+        CharBuffer chars = decoder.get().reset().decode(bytes);
+        if (chars.hasRemaining() && chars.get(chars.position()) == '\uFEFF') {
+            chars.position(chars.position() + 1);
+        }
+        return chars;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    public static final class Source {
+
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+        private final long hash;
+        private final CharBuffer chars;
+
+        private Source(Path path, long size, long lastModified, long hash, CharBuffer chars) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.chars = chars;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * The size in bytes, the modification time taken before the bytes were read and their hash.
+         */
+        public PersistentTypeIndex.Entry toIndexEntry(List<String> typeNames) {
+            return PersistentTypeIndex.Entry.of(path, size, lastModified, hash, typeNames);
+        }
+
+        /**
+         * Reads straight from the decoded chars, without copying them.
+         */
+        public Provider provider() {
+            return Providers.provider(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.apixandru.java.main;
+
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Watches every directory below the source roots and reports the source files touched by a burst of changes,
+ * once no change has been seen for a short quiet period.
+ */
+public class SourceWatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceWatcher.class);
+
+    private static final long QUIET_PERIOD_MILLIS = 200;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    public SourceWatcher(List<Path> roots) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            registerAll(root, new TreeSet<>());
+        }
+        log.info("Watching {} directories", directories.size());
+    }
+
+    private void registerAll(Path root, Set<String> createdFiles) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (SourceFiles.isSourceFile(file)) {
+                    createdFiles.add(TypeIndex.toKey(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Blocks until something changes. When events were lost, or a watched directory was deleted or moved away along
+     * with files nobody was told about, the whole tree is scanned again with {@code rescan}.
+     */
+    public Set<String> awaitChanges(Supplier<Set<String>> rescan) throws InterruptedException {
+        Set<String> changed = new TreeSet<>();
+        boolean rescanNeeded = false;
+        WatchKey key = watchService.take();
+        while (key != null) {
+            rescanNeeded |= collect(key, changed);
+            key = watchService.poll(QUIET_PERIOD_MILLIS, MILLISECONDS);
+        }
+        if (rescanNeeded) {
+            log.warn("Lost file system events or directories, scanning all sources");
+            return rescan.get();
+        }
+        return changed;
+    }
+
+    /**
+     * @return whether the events of the key do not tell every file that changed
+     */
+    private boolean collect(WatchKey key, Set<String> changed) {
+        boolean rescanNeeded = false;
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                rescanNeeded = true;
+                continue;
+            }
+            Path child = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_DELETE && directories.containsValue(child)) {
+                // its files are gone without events of their own, its key is cancelled once reset
+                rescanNeeded = true;
+            } else if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                try {
+                    registerAll(child, changed);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            } else if (SourceFiles.isSourceFile(child)) {
+                changed.add(TypeIndex.toKey(child));
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return rescanNeeded;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+}
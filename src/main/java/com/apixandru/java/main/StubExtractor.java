@@ -0,0 +1,135 @@
+package com.apixandru.java.main;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.nodeTypes.NodeWithModifiers;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.configuration.DefaultConfigurationOption;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration.ConfigOption;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.StubIndex;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.apixandru.java.visitors.JpUtils.getPackageName;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the {@link StubIndex} of a library, {@code hotspot} for instance, next to its type index, where the
+ * libraries depending on it find it. Bodies become empty, so every method keeps the modifiers it was declared with.
+ * {@link LibraryModels} extracts the stubs of a dependency itself the first time it needs them. A file found under
+ * more than one source root keeps the stub of the first root.
+ */
+public class StubExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(StubExtractor.class);
+
+    private static final DefaultPrettyPrinter PRINTER = new DefaultPrettyPrinter(new DefaultPrinterConfiguration()
+            .removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_COMMENTS))
+            .removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_JAVADOC)));
+
+    public static void main(String[] args) {
+        String analysisRoot = "C:/_/workdir/analysis/";
+        Library library = Libraries.getLibrary(args[0]);
+        extract(library, library.getStubFile(analysisRoot));
+    }
+
+    static void extract(Library library, Path stubFile) {
+        long start = System.currentTimeMillis();
+        List<Queue<StubIndex.Stub>> stubsByRoot = new ArrayList<>();
+        LongAdder stubBytes = new LongAdder();
+        try {
+            List<Path> srcPaths = library.getSrcPaths();
+            srcPaths.forEach(root -> stubsByRoot.add(new ConcurrentLinkedQueue<>()));
+            SourceFiles.discover(srcPaths, path -> {
+                CompilationUnit compilationUnit = new CompilationUnitCallable(path).call();
+                if (compilationUnit.getTypes().isEmpty()) {
+                    return; // package-info.java
+                }
+                StubIndex.Stub stub = toStub(path, compilationUnit);
+                stubBytes.add(stub.getSource().getBytes(UTF_8).length);
+                stubsByRoot.get(findRoot(srcPaths, path)).add(stub);
+            });
+        } finally {
+            library.closeSourceJars();
+        }
+        List<StubIndex.Stub> stubs = new ArrayList<>();
+        stubsByRoot.forEach(stubs::addAll);
+        int written = StubIndex.write(stubFile, library.getKey(), stubs);
+        log.info("Wrote {} stubs, {} KB of source, to {} in {} ms", written, stubBytes.sum() >> 10, stubFile,
+                System.currentTimeMillis() - start);
+    }
+
+    private static int findRoot(List<Path> roots, Path path) {
+        for (int i = 0; i < roots.size(); i++) {
+            if (path.startsWith(roots.get(i))) {
+                return i;
+            }
+        }
+        throw new IllegalStateException(path + " is under none of " + roots);
+    }
+
+    static StubIndex.Stub toStub(Path path, CompilationUnit compilationUnit) {
+        for (TypeDeclaration<?> type : compilationUnit.getTypes()) {
+            strip(type);
+        }
+        String packageName = getPackageName(compilationUnit);
+        String fileName = path.getFileName().toString();
+        String entry = packageName == null ? fileName : packageName.replace('.', '/') + "/" + fileName;
+        return StubIndex.Stub.of(entry, PRINTER.print(compilationUnit), TypeIndex.getTypeNames(compilationUnit));
+    }
+
+    /**
+     * Local and anonymous classes go with the bodies they are declared in. Private constructors stay, a class whose
+     * constructors are all private would get a default one otherwise.
+     */
+    private static void strip(TypeDeclaration<?> type) {
+        for (BodyDeclaration<?> member : new ArrayList<>(type.getMembers())) {
+            if (member instanceof InitializerDeclaration
+                    || isPrivate(member) && !(member instanceof ConstructorDeclaration)) {
+                member.remove();
+            } else if (member instanceof MethodDeclaration) {
+                MethodDeclaration method = (MethodDeclaration) member;
+                if (method.getBody().isPresent()) {
+                    method.setBody(new BlockStmt());
+                }
+            } else if (member instanceof ConstructorDeclaration) {
+                ((ConstructorDeclaration) member).setBody(new BlockStmt());
+            } else if (member instanceof FieldDeclaration) {
+                ((FieldDeclaration) member).getVariables().forEach(VariableDeclarator::removeInitializer);
+            } else if (member instanceof TypeDeclaration) {
+                strip((TypeDeclaration<?>) member);
+            }
+        }
+        if (type instanceof EnumDeclaration) {
+            for (EnumConstantDeclaration constant : ((EnumDeclaration) type).getEntries()) {
+                constant.getArguments().clear();
+                constant.getClassBody().clear();
+            }
+        }
+    }
+
+    private static boolean isPrivate(BodyDeclaration<?> member) {
+        return member instanceof NodeWithModifiers
+                && ((NodeWithModifiers<?>) member).hasModifier(Modifier.Keyword.PRIVATE);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.apixandru.java.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+
+/**
+ * The garbage collections so far and the heap the last one left in use. Taken before and after a run, the two tell
+ * how much collecting the run caused and how much of the heap it left live, which unlike the heap in use at any
+ * moment does not depend on when the collector last ran.
+ */
+public final class GcSnapshot {
+
+    private final long collections;
+    private final long collectionMillis;
+    private final long usedAfterGc;
+
+    private GcSnapshot(long collections, long collectionMillis, long usedAfterGc) {
+        this.collections = collections;
+        this.collectionMillis = collectionMillis;
+        this.usedAfterGc = usedAfterGc;
+    }
+
+    public static GcSnapshot take() {
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, collector.getCollectionCount());
+            collectionMillis += Math.max(0, collector.getCollectionTime());
+        }
+        return new GcSnapshot(collections, collectionMillis, measureUsedAfterGc());
+    }
+
+    /**
+     * The heap in use right after the last collection of each of its pools.
+     */
+    private static long measureUsedAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    public long getCollections() {
+        return collections;
+    }
+
+    public long getUsedAfterGc() {
+        return usedAfterGc;
+    }
+
+    /**
+     * What happened between the earlier snapshot and this one, for the log.
+     */
+    public String describeSince(GcSnapshot before) {
+        return String.format(Locale.ROOT, "%d collections took %d ms, %d MB of heap live after the last one, "
+                        + "%d MB before",
+                collections - before.collections, collectionMillis - before.collectionMillis,
+                usedAfterGc >> 20, before.usedAfterGc >> 20);
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.apixandru.java.metrics;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Serves the meters of {@link RunMetrics} while a run is going on, through the actuator endpoints
+ * ({@code /actuator/metrics/javametadata.file.resolve} for instance) and {@link RunController}.
+ */
+@SpringBootApplication
+public class MetricsServer {
+
+    public static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(MetricsServer.class)
+                .run(args);
+    }
+
+    public static void main(String[] args) {
+        start(args);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.apixandru.java.metrics;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/run")
+public class RunController {
+
+    @GetMapping("/slowest-files")
+    public List<SlowestFiles.FileTimings> getSlowestFiles(@RequestParam(defaultValue = "20") int limit) {
+        return RunMetrics.INSTANCE.getSlowestFiles().getTop(limit);
+    }
+
+    @GetMapping("/phases")
+    public List<RunMetrics.PhaseSummary> getPhases() {
+        return RunMetrics.INSTANCE.getPhases();
+    }
+
+}
@@ -0,0 +1,320 @@
+package com.apixandru.java.metrics;
+
+import com.apixandru.util.CsvUtils;
+import com.opencsv.CSVWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import static com.apixandru.util.CsvUtils.newCsvWriter;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * The meters of a run. They are registered with the Micrometer global registry, which the registry of
+ * {@link MetricsServer} joins while it is running, and with a registry of their own that the run summary is written
+ * from once the run is over.
+ * <p>
+ * A run goes through phases, parsing then reporting for instance, each one timed and followed by the heap it left
+ * behind and the most heap it used. The pauses and allocations of the garbage collector are in the summary too.
+ * <p>
+ * A batch collects several libraries in a row, {@link #reset()} starts the summary over for each of them. Meters
+ * that outlive a library, the cache gauges of the models it depends on for instance, are tagged with their library.
+ */
+public final class RunMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(RunMetrics.class);
+
+    private static final String PREFIX = "javametadata.";
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+    private static final Duration PERCENTILE_WINDOW = Duration.ofDays(1);
+
+    public static final RunMetrics INSTANCE = new RunMetrics();
+
+    public enum Stage {
+        PARSE, RESOLVE, WRITE
+    }
+
+    private final MeterRegistry registry = Metrics.globalRegistry;
+    private SimpleMeterRegistry summaryRegistry = new SimpleMeterRegistry();
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<String, Timer> visitorTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> visitorNodes = new ConcurrentHashMap<>();
+    private final SlowestFiles slowestFiles = new SlowestFiles();
+
+    private final List<PhaseSummary> phases = new CopyOnWriteArrayList<>();
+    private final List<Meter> phaseGauges = new ArrayList<>();
+    private String phase;
+    private long phaseStart;
+
+    private RunMetrics() {
+        Metrics.globalRegistry.add(summaryRegistry);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmGcMetrics().bindTo(registry);
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, timer("file." + stage.name().toLowerCase(), Tags.empty()));
+        }
+    }
+
+    /**
+     * The percentiles cover the whole run rather than the last couple of minutes.
+     */
+    private Timer timer(String name, Iterable<Tag> tags) {
+        return Timer.builder(PREFIX + name)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .distributionStatisticExpiry(PERCENTILE_WINDOW)
+                .register(registry);
+    }
+
+    public void recordStage(String file, Stage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+        slowestFiles.record(file, stage, nanos);
+    }
+
+    /**
+     * Recorded once per file, for all the nodes the visitor handled in it.
+     */
+    public void recordVisitor(String visitor, long nodes, long nanos) {
+        visitorTimers.computeIfAbsent(visitor, key -> timer("visitor.time", Tags.of("visitor", key)))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        visitorNodes.computeIfAbsent(visitor, key -> registry.counter(PREFIX + "visitor.nodes", "visitor", key))
+                .increment(nodes);
+    }
+
+    /**
+     * Meant to be kept in a field, {@code resolutions("type", "resolved")} for instance.
+     */
+    public Counter resolutions(String kind, String outcome) {
+        return registry.counter(PREFIX + "resolutions", "kind", kind, "outcome", outcome);
+    }
+
+    public <T> Meter countFunction(String name, T owner, ToDoubleFunction<T> count, String... tags) {
+        return FunctionCounter.builder(PREFIX + name, owner, count)
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * The gauge only holds a weak reference to the owner, an owner that is gone reads as {@code NaN}.
+     */
+    public <T> Meter gauge(String name, T owner, ToDoubleFunction<T> value, String... tags) {
+        return Gauge.builder(PREFIX + name, owner, value)
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * The gauge only holds a weak reference to the owner, a queue that is gone reads as {@code NaN}. Gauges of the
+     * same queue and state are one and the same, so a queue is to {@link #remove} its gauges once it is done with.
+     */
+    public <T> Meter gaugeQueue(String queue, String state, T owner, ToDoubleFunction<T> depth) {
+        return Gauge.builder(PREFIX + "queue.depth", owner, depth)
+                .tags("queue", queue, "state", state)
+                .register(registry);
+    }
+
+    public void remove(Collection<Meter> meters) {
+        meters.forEach(registry::remove);
+    }
+
+    /**
+     * Starts the summary over, for the next library of a batch. Counters and timers count from zero again, gauges
+     * read what they watch as before, and the phases and slowest files of the previous library are forgotten.
+     */
+    public synchronized void reset() {
+        endPhase();
+        remove(phaseGauges);
+        phaseGauges.clear();
+        phases.clear();
+        slowestFiles.clear();
+        // the registry that joins the global one is given every meter there is, starting from zero
+        Metrics.globalRegistry.remove(summaryRegistry);
+        summaryRegistry.close();
+        summaryRegistry = new SimpleMeterRegistry();
+        Metrics.globalRegistry.add(summaryRegistry);
+    }
+
+    /**
+     * Ends the current phase, if any, and starts the next one.
+     */
+    public synchronized void enterPhase(String name) {
+        endPhase();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        phase = name;
+        phaseStart = System.nanoTime();
+    }
+
+    public synchronized void endPhase() {
+        if (phase == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - phaseStart;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        PhaseSummary summary = new PhaseSummary(phase, nanos, heapUsed, peakHeap);
+        registry.timer(PREFIX + "phase.time", "phase", phase).record(nanos, TimeUnit.NANOSECONDS);
+        // removed by reset(), a gauge registered again under the same phase would keep reading the first summary
+        phaseGauges.add(Gauge.builder(PREFIX + "phase.heap.used", summary, PhaseSummary::getHeapUsed)
+                .tags("phase", phase)
+                .strongReference(true)
+                .register(registry));
+        phaseGauges.add(Gauge.builder(PREFIX + "phase.heap.peak", summary, PhaseSummary::getPeakHeap)
+                .tags("phase", phase)
+                .strongReference(true)
+                .register(registry));
+
+        phases.add(summary);
+        log.info("Phase {} took {} ms, {} MB of heap used at its end, {} MB at its peak", phase,
+                summary.getMillis(), summary.getHeapUsedMb(), summary.getPeakHeapMb());
+        phase = null;
+    }
+
+    public List<PhaseSummary> getPhases() {
+        return phases;
+    }
+
+    public SlowestFiles getSlowestFiles() {
+        return slowestFiles;
+    }
+
+    /**
+     * One line per meter, the latencies in milliseconds. The histogram buckets are left to the registries that
+     * publish them.
+     */
+    public void writeSummary(File file) {
+        List<Meter> meters = new ArrayList<>(summaryRegistry.getMeters());
+        meters.removeIf(meter -> meter.getId().getName().endsWith(".histogram")
+                || meter.getId().getName().endsWith(".percentile"));
+        meters.sort(Comparator.comparing((Meter meter) -> meter.getId().getName()).thenComparing(RunMetrics::formatTags));
+
+        file.getParentFile().mkdirs();
+        try (CSVWriter writer = newCsvWriter(file)) {
+            CsvUtils.write(writer, "meter", "tags", "count", "total_ms", "mean_ms", "max_ms", "p50_ms", "p95_ms", "p99_ms", "value");
+            for (Meter meter : meters) {
+                writeSummary(writer, meter);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write " + file, ex);
+        }
+        log.info("Run summary of {} meters written to {}", meters.size(), file);
+    }
+
+    private static void writeSummary(CSVWriter writer, Meter meter) {
+        String name = meter.getId().getName();
+        String tags = formatTags(meter);
+        if (meter instanceof Timer) {
+            Timer timer = (Timer) meter;
+            Object[] percentiles = {"", "", ""};
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                int index = Arrays.binarySearch(PERCENTILES, percentile.percentile());
+                if (index >= 0) {
+                    percentiles[index] = millis(percentile.value(TimeUnit.MILLISECONDS));
+                }
+            }
+            CsvUtils.write(writer, name, tags, timer.count(), millis(timer.totalTime(TimeUnit.MILLISECONDS)),
+                    millis(timer.mean(TimeUnit.MILLISECONDS)), millis(timer.max(TimeUnit.MILLISECONDS)),
+                    percentiles[0], percentiles[1], percentiles[2], "");
+        } else if (meter instanceof Counter) {
+            CsvUtils.write(writer, name, tags, (long) ((Counter) meter).count(), "", "", "", "", "", "", "");
+        } else if (meter instanceof FunctionCounter) {
+            CsvUtils.write(writer, name, tags, (long) ((FunctionCounter) meter).count(), "", "", "", "", "", "", "");
+        } else if (meter instanceof Gauge) {
+            CsvUtils.write(writer, name, tags, "", "", "", "", "", "", "", ((Gauge) meter).value());
+        }
+    }
+
+    private static String millis(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String formatTags(Meter meter) {
+        return meter.getId().getTags().stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(joining(";"));
+    }
+
+    public static final class PhaseSummary {
+
+        private final String name;
+        private final long nanos;
+        private final long heapUsed;
+        private final long peakHeap;
+
+        private PhaseSummary(String name, long nanos, long heapUsed, long peakHeap) {
+            this.name = name;
+            this.nanos = nanos;
+            this.heapUsed = heapUsed;
+            this.peakHeap = peakHeap;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        double getHeapUsed() {
+            return heapUsed;
+        }
+
+        double getPeakHeap() {
+            return peakHeap;
+        }
+
+        public long getHeapUsedMb() {
+            return heapUsed >> 20;
+        }
+
+        public long getPeakHeapMb() {
+            return peakHeap >> 20;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.apixandru.java.metrics;
+
+import com.apixandru.util.CsvUtils;
+import com.opencsv.CSVWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.apixandru.util.CsvUtils.newCsvWriter;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The time every file spent in each stage. The stages of a file run at different times and on different threads,
+ * so all the files are kept until the end of the run and only then ranked.
+ */
+public final class SlowestFiles {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowestFiles.class);
+
+    private static final int LOGGED = 10;
+
+    private final Map<String, FileTimings> timings = new ConcurrentHashMap<>();
+
+    SlowestFiles() {
+    }
+
+    void record(String file, RunMetrics.Stage stage, long nanos) {
+        timings.computeIfAbsent(file, FileTimings::new)
+                .add(stage, nanos);
+    }
+
+    public List<FileTimings> getTop(int limit) {
+        return timings.values().stream()
+                .sorted(Comparator.comparingLong(FileTimings::getTotalNanos).reversed())
+                .limit(limit)
+                .collect(toList());
+    }
+
+    public int size() {
+        return timings.size();
+    }
+
+    public void clear() {
+        timings.clear();
+    }
+
+    public void writeReport(File file, int limit) {
+        List<FileTimings> top = getTop(limit);
+        file.getParentFile().mkdirs();
+        try (CSVWriter writer = newCsvWriter(file)) {
+            CsvUtils.write(writer, "file", "total_ms", "parse_ms", "resolve_ms", "write_ms");
+            for (FileTimings timing : top) {
+                CsvUtils.write(writer, timing.getFile(), timing.getTotalMillis(), timing.getParseMillis(),
+                        timing.getResolveMillis(), timing.getWriteMillis());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write " + file, ex);
+        }
+        log.info("{} files timed, the {} slowest written to {}", timings.size(), top.size(), file);
+        for (FileTimings timing : top.subList(0, Math.min(LOGGED, top.size()))) {
+            log.info("{} ms (parse {}, resolve {}, write {}) {}", timing.getTotalMillis(), timing.getParseMillis(),
+                    timing.getResolveMillis(), timing.getWriteMillis(), timing.getFile());
+        }
+    }
+
+    public static final class FileTimings {
+
+        private final String file;
+        private final AtomicLongArray nanos = new AtomicLongArray(RunMetrics.Stage.values().length);
+
+        private FileTimings(String file) {
+            this.file = file;
+        }
+
+        /**
+         * A file parsed twice, once for the index and once for its reports, adds up both parses.
+         */
+        private void add(RunMetrics.Stage stage, long elapsed) {
+            nanos.addAndGet(stage.ordinal(), elapsed);
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        long getTotalNanos() {
+            long total = 0;
+            for (int i = 0; i < nanos.length(); i++) {
+                total += nanos.get(i);
+            }
+            return total;
+        }
+
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(getTotalNanos());
+        }
+
+        public long getParseMillis() {
+            return getMillis(RunMetrics.Stage.PARSE);
+        }
+
+        public long getResolveMillis() {
+            return getMillis(RunMetrics.Stage.RESOLVE);
+        }
+
+        public long getWriteMillis() {
+            return getMillis(RunMetrics.Stage.WRITE);
+        }
+
+        private long getMillis(RunMetrics.Stage stage) {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.get(stage.ordinal()));
+        }
+
+    }
+
+}
@@ -1,41 +1,87 @@
 package com.apixandru.java.visitors;
 
+import com.apixandru.util.ColumnarReport;
+import com.apixandru.util.CsvRowWriterFactory;
+import com.apixandru.util.RowWriter;
+import com.apixandru.util.RowWriterFactory;
+import com.apixandru.util.Symbol;
 import com.github.javaparser.Position;
 import com.github.javaparser.ast.nodeTypes.NodeWithRange;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
-import com.opencsv.CSVWriter;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 import static com.apixandru.java.visitors.JpUtils.getStart;
-import static com.apixandru.util.CsvUtils.newCsvWriter;
-import static com.apixandru.util.CsvUtils.write;
 
 public abstract class AbstractCsvReport implements Closeable {
 
-    private final File errorsFile;
-    private final File file;
-    private final File packagesFile;
+    private final File fakeOutput;
+    private final String what;
+    private final RowWriterFactory writerFactory;
 
-    private CSVWriter writer;
-    private CSVWriter packagesWriter;
-    private CSVWriter errorWriter;
+    private RowWriter writer;
+    private RowWriter packagesWriter;
+    private RowWriter errorWriter;
 
     public AbstractCsvReport(File fakeOutput, String what) {
-        this.file = new File(fakeOutput.getAbsolutePath() + "." + what + ".csv");
-        this.packagesFile = new File(fakeOutput.getAbsolutePath() + "." + what + ".packages.csv");
-        this.errorsFile = new File(fakeOutput.getAbsolutePath() + "." + what + ".errors.csv");
+        this(fakeOutput, what, CsvRowWriterFactory.BATCHED);
     }
 
-    private void doWrite(CSVWriter writer, NodeWithRange<?> node, Object... args) {
+    public AbstractCsvReport(File fakeOutput, String what, RowWriterFactory writerFactory) {
+        this.fakeOutput = fakeOutput;
+        this.what = what;
+        this.writerFactory = writerFactory;
+    }
+
+    public static File getReportFile(File fakeOutput, String what) {
+        return RowWriterFactory.getFile(fakeOutput, what);
+    }
+
+    /**
+     * Reports are only created once something is written to them, so stale ones have to go before a file is
+     * reported again.
+     */
+    public static void deleteReports(File fakeOutput) {
+        String prefix = fakeOutput.getName() + ".";
+        File[] reports = fakeOutput.getParentFile()
+                .listFiles((dir, name) -> name.startsWith(prefix)
+                        && (name.endsWith(".csv") || name.endsWith(ColumnarReport.EXTENSION)));
+        if (reports == null) {
+            return;
+        }
+        for (File report : reports) {
+            if (!report.delete()) {
+                throw new IllegalStateException("Cannot delete " + report);
+            }
+        }
+    }
+
+    private void doWrite(RowWriter writer, NodeWithRange<?> node, Object... args) {
         Position start = getStart(node);
-        List<Object> objects = new ArrayList<>(List.of(start.line, start.column));
-        objects.addAll(List.of(args));
-        write(writer, objects.toArray());
+        Object[] row = new Object[args.length + 2];
+        row[0] = start.line;
+        row[1] = start.column;
+        for (int i = 0; i < args.length; i++) {
+            row[i + 2] = toCell(args[i]);
+        }
+        writer.write(row);
+    }
+
+    /**
+     * Cells may be written on another thread, nodes are turned into strings while still on this one. Symbols are
+     * only turned into their names when written.
+     */
+    private static Object toCell(Object arg) {
+        if (arg == null) {
+            return "";
+        }
+        if (arg instanceof Number || arg instanceof Symbol) {
+            return arg;
+        }
+        return arg.toString();
     }
 
     protected final void writeRegular(NodeWithRange<?> node, Object... args) {
@@ -64,29 +110,23 @@ public abstract class AbstractCsvReport implements Closeable {
         return List.of("line", "col", "package", "type");
     }
 
-    private CSVWriter getErrorWriter() {
+    private RowWriter getErrorWriter() {
         if (errorWriter == null) {
-            errorsFile.getParentFile().mkdirs();
-            errorWriter = newCsvWriter(errorsFile);
-            write(errorWriter, getErrorWriterHeader().toArray());
+            errorWriter = writerFactory.open(fakeOutput, what + ".errors", getErrorWriterHeader());
         }
         return errorWriter;
     }
 
-    private CSVWriter getWriter() {
+    private RowWriter getWriter() {
         if (writer == null) {
-            file.getParentFile().mkdirs();
-            writer = newCsvWriter(this.file);
-            write(writer, getWriterHeader().toArray());
+            writer = writerFactory.open(fakeOutput, what, getWriterHeader());
         }
         return writer;
     }
 
-    private CSVWriter getPackagesWriter() {
+    private RowWriter getPackagesWriter() {
         if (packagesWriter == null) {
-            file.getParentFile().mkdirs();
-            packagesWriter = newCsvWriter(this.packagesFile);
-            write(packagesWriter, getPackagesWriterHeader().toArray());
+            packagesWriter = writerFactory.open(fakeOutput, what + ".packages", getPackagesWriterHeader());
         }
         return packagesWriter;
     }
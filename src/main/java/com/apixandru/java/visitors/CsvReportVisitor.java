@@ -1,6 +1,5 @@
 package com.apixandru.java.visitors;
 
-import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.stmt.UnparsableStmt;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
@@ -14,40 +13,20 @@ import com.github.javaparser.symbolsolver.model.typesystem.ReferenceTypeImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Optional;
-
 public class CsvReportVisitor extends VoidVisitorAdapter<CsvReports> {
 
     public static final CsvReportVisitor INSTANCE = new CsvReportVisitor();
 
     private static final Logger log = LoggerFactory.getLogger(CsvReportVisitor.class);
 
-    private static ClassOrInterfaceType getTopLevelClass(ClassOrInterfaceType coit) {
-        Optional<Node> optionalParentNode = coit.getParentNode();
-        if (optionalParentNode.isEmpty()) {
-            return null;
-        }
-        Node node = optionalParentNode.get();
-        if (node instanceof ClassOrInterfaceType) {
-            coit = (ClassOrInterfaceType) node;
-            try {
-                coit.resolve();
-                return coit; // it's resolvable, this is the real deal guys!
-            } catch (Exception ex) {
-//                ex.printStackTrace();
-                return getTopLevelClass(coit);
-            }
-        }
-        return null;
-    }
-
-    private void tryResolveAgain(ClassOrInterfaceType n, CsvReports arg, UnsolvedSymbolException ex) {
-        ClassOrInterfaceType topLevelClass = getTopLevelClass(n);
+    private void tryResolveAgain(ClassOrInterfaceType n, CsvReports arg, String error) {
+        ClassOrInterfaceType topLevelClass = TypeResolutionCache.findResolvableOuterType(n);
         if (topLevelClass != null) {
             arg.writePackage(n, n, topLevelClass);
             return;
         }
-        arg.writeError(n, "Bad symbol " + n, ex.getMessage());
+        MissingSymbols.INSTANCE.count(n, n.getNameWithScope());
+        arg.writeError(n, "Bad symbol " + n, error);
         log.error("Bad symbol " + n);
     }
 
@@ -60,12 +39,13 @@ public class CsvReportVisitor extends VoidVisitorAdapter<CsvReports> {
     @Override
     public void visit(ClassOrInterfaceType n, CsvReports arg) {
         super.visit(n, arg);
-        try {
-            arg.writeRegular(n, n.resolve().getQualifiedName());
-        } catch (UnsolvedSymbolException ex) {
-            tryResolveAgain(n, arg, ex);
-        } catch (UnsupportedOperationException ex) {
-            arg.writeError(n, "Unresolvable symbol " + n, ex.getMessage());
+        TypeResolutionCache.Resolution resolution = TypeResolutionCache.resolve(n);
+        if (resolution.isResolved()) {
+            arg.writeRegular(n, resolution.getQualifiedName());
+        } else if (resolution.isUnsupported()) {
+            arg.writeError(n, "Unresolvable symbol " + n, resolution.getError());
+        } else {
+            tryResolveAgain(n, arg, resolution.getError());
         }
     }
 
@@ -1,5 +1,6 @@
 package com.apixandru.java.visitors;
 
+import com.apixandru.util.RowWriterFactory;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 
 import java.io.File;
@@ -11,9 +12,13 @@ public class DefCsvReport extends AbstractCsvReport {
         super(fakeOutput, "def");
     }
 
+    public DefCsvReport(File fakeOutput, RowWriterFactory writerFactory) {
+        super(fakeOutput, "def", writerFactory);
+    }
+
     public void add(ClassOrInterfaceDeclaration owner) {
         try {
-            writeRegular(owner, owner.getFullyQualifiedName().get());
+            writeRegular(owner, JpUtils.getFullyQualifiedName(owner));
         } catch (Exception ex) {
             writeError(owner, owner.getNameAsString(), ex.getMessage());
         }
@@ -10,6 +10,10 @@ public class DefinitionExtractVisitor extends VoidVisitorAdapter<DefCsvReport> {
     @Override
     public void visit(ClassOrInterfaceDeclaration n, DefCsvReport arg) {
         super.visit(n, arg);
+        extract(n, arg);
+    }
+
+    void extract(ClassOrInterfaceDeclaration n, DefCsvReport arg) {
         arg.add(n);
     }
 
@@ -1,32 +1,165 @@
 package com.apixandru.java.visitors;
 
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedTypeDeclaration;
 import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.SymbolSolver;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class DelegatingSymbolResolver implements SymbolResolver {
 
-    private SymbolResolver sr;
+    private final Map<Thread, Resolvers> resolvers = new ConcurrentHashMap<>();
+
+    private Supplier<Resolvers> factory;
+
+    /**
+     * The resolver of the compilation unit of the node, when it is one of these. The data of the unit is read under
+     * its lock, like {@link TypeResolutionCache} and {@link MissingSymbols} write theirs.
+     */
+    public static Optional<DelegatingSymbolResolver> of(Node node) {
+        return node.findCompilationUnit()
+                .map(DelegatingSymbolResolver::getSymbolResolver)
+                .filter(DelegatingSymbolResolver.class::isInstance)
+                .map(DelegatingSymbolResolver.class::cast);
+    }
+
+    private static SymbolResolver getSymbolResolver(CompilationUnit compilationUnit) {
+        synchronized (compilationUnit) {
+            return compilationUnit.containsData(Node.SYMBOL_RESOLVER_KEY)
+                    ? compilationUnit.getData(Node.SYMBOL_RESOLVER_KEY)
+                    : null;
+        }
+    }
 
     @Override
     public <T> T resolveDeclaration(Node node, Class<T> resultClass) {
-        return sr.resolveDeclaration(node, resultClass);
+        return getResolvers().sr.resolveDeclaration(node, resultClass);
     }
 
     @Override
     public <T> T toResolvedType(Type javaparserType, Class<T> resultClass) {
-        return sr.toResolvedType(javaparserType, resultClass);
+        return getResolvers().sr.toResolvedType(javaparserType, resultClass);
     }
 
     @Override
     public ResolvedType calculateType(Expression expression) {
-        return sr.calculateType(expression);
+        return getResolvers().sr.calculateType(expression);
     }
 
-    public void setSr(SymbolResolver sr) {
-        this.sr = sr;
+    /**
+     * Solves the declaration of the type without building an exception when it cannot be found. Names already known
+     * to be missing in the same context are not looked up again, whichever file they are found in.
+     */
+    public Optional<ResolvedTypeDeclaration> tryToSolveType(ClassOrInterfaceType type) {
+        return tryToSolveType(type, type.getNameWithScope());
+    }
+
+    /**
+     * Same as {@link #tryToSolveType(ClassOrInterfaceType)}, for a type name written in an expression, the scope of
+     * a static call for instance.
+     *
+     * @param name a type name as written at the node, possibly qualified
+     */
+    public Optional<ResolvedTypeDeclaration> tryToSolveType(Node node, String name) {
+        if (MissingSymbols.INSTANCE.isKnownMissing(node, name)) {
+            return Optional.empty();
+        }
+        SymbolReference<? extends ResolvedTypeDeclaration> reference;
+        try {
+            reference = getResolvers().symbolSolver.solveType(name, node);
+        } catch (UnsolvedSymbolException ex) {
+            // thrown by the contexts when something on the way is missing, which says nothing about the type itself
+            return Optional.empty();
+        }
+        if (!reference.isSolved()) {
+            MissingSymbols.INSTANCE.markMissing(node, name);
+            return Optional.empty();
+        }
+        return Optional.of(reference.getCorrespondingDeclaration());
+    }
+
+    /**
+     * Whether the name may stand for a variable, a parameter or a field where the node is, which hides a type with
+     * the same name. A lookup that fails on the way, on a missing super class for instance, is taken as a maybe.
+     */
+    public boolean mayBeValue(Node node, String name) {
+        try {
+            return getResolvers().symbolSolver.solveSymbolAsValue(name, node).isPresent();
+        } catch (RuntimeException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * @param typeSolver the type solver behind {@code sr}, used by the exception free lookups
+     */
+    public void setSr(SymbolResolver sr, TypeSolver typeSolver) {
+        Resolvers shared = new Resolvers(sr, typeSolver);
+        this.factory = () -> shared;
+    }
+
+    /**
+     * Resolves on every thread with the type solver {@code typeSolvers} gives that thread.
+     */
+    public void setSr(Supplier<? extends TypeSolver> typeSolvers) {
+        this.factory = () -> {
+            TypeSolver typeSolver = typeSolvers.get();
+            return new Resolvers(new JavaSymbolSolver(typeSolver), typeSolver);
+        };
+    }
+
+    /**
+     * The resolvers of the calling thread, only ever added by that thread. Those of threads that died are dropped
+     * when another thread gets its own.
+     */
+    private Resolvers getResolvers() {
+        Thread thread = Thread.currentThread();
+        Resolvers current = resolvers.get(thread);
+        if (current == null) {
+            resolvers.keySet().removeIf(other -> !other.isAlive());
+            current = factory.get();
+            resolvers.put(thread, current);
+        }
+        return current;
+    }
+
+    /**
+     * Drops the resolvers of every thread, and the type solvers they hold on to. A thread resolving afterwards gets
+     * new ones.
+     */
+    public void close() {
+        resolvers.clear();
+    }
+
+    public void inject(CompilationUnit destination) {
+        synchronized (destination) {
+            destination.setData(Node.SYMBOL_RESOLVER_KEY, this);
+        }
+    }
+
+    private static final class Resolvers {
+
+        private final SymbolResolver sr;
+        private final SymbolSolver symbolSolver;
+
+        Resolvers(SymbolResolver sr, TypeSolver typeSolver) {
+            this.sr = sr;
+            this.symbolSolver = new SymbolSolver(typeSolver);
+        }
+
     }
 
 }
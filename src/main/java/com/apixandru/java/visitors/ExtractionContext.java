@@ -0,0 +1,66 @@
+package com.apixandru.java.visitors;
+
+import com.apixandru.java.callgraph.CallGraphBuilder;
+import com.apixandru.util.CsvRowWriterFactory;
+import com.apixandru.util.RowWriterFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Per file state shared by all the extractors of a single traversal.
+ * Reports are opened on first use and closed together.
+ */
+public class ExtractionContext implements Closeable {
+
+    private final File outputFile;
+    private final RowWriterFactory writerFactory;
+    private final CallGraphBuilder callGraph;
+
+    private final Map<Class<?>, AbstractCsvReport> reports = new LinkedHashMap<>();
+
+    public ExtractionContext(File outputFile) {
+        this(outputFile, CsvRowWriterFactory.BATCHED);
+    }
+
+    public ExtractionContext(File outputFile, RowWriterFactory writerFactory) {
+        this(outputFile, writerFactory, null);
+    }
+
+    /**
+     * The resolved calls are added to the call graph, when there is one, on top of being reported.
+     */
+    public ExtractionContext(File outputFile, RowWriterFactory writerFactory, CallGraphBuilder callGraph) {
+        this.outputFile = outputFile;
+        this.writerFactory = writerFactory;
+        this.callGraph = callGraph;
+    }
+
+    public <R extends AbstractCsvReport> R getReport(Class<R> type, BiFunction<File, RowWriterFactory, R> factory) {
+        return type.cast(reports.computeIfAbsent(type, key -> factory.apply(outputFile, writerFactory)));
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public RowWriterFactory getWriterFactory() {
+        return writerFactory;
+    }
+
+    public Optional<CallGraphBuilder> getCallGraph() {
+        return Optional.ofNullable(callGraph);
+    }
+
+    @Override
+    public void close() {
+        for (AbstractCsvReport report : reports.values()) {
+            report.close();
+        }
+    }
+
+}
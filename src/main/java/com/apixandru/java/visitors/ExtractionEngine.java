@@ -0,0 +1,126 @@
+package com.apixandru.java.visitors;
+
+import com.apixandru.java.metrics.RunMetrics;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.stmt.UnparsableStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.TypeParameter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs every registered {@link Extractor} in a single post-order walk of the tree,
+ * the same order in which the visitors used to handle their nodes.
+ */
+public class ExtractionEngine {
+
+    private static final String METHODS = MethodResolverVisitor.class.getSimpleName();
+    private static final String SYMBOLS = SymbolsExtractVisitor.class.getSimpleName();
+    private static final String DEFINITIONS = DefinitionExtractVisitor.class.getSimpleName();
+
+    public static final ExtractionEngine INSTANCE = new ExtractionEngine(List.of(
+            Extractor.of(METHODS, MethodCallExpr.class,
+                    (n, ctx) -> MethodResolverVisitor.INSTANCE.extract(n, ctx.getReport(MethodCsvReport.class, MethodCsvReport::new))
+                            .ifPresent(callee -> ctx.getCallGraph().ifPresent(callGraph -> callGraph.addCall(n, callee)))),
+            Extractor.of(SYMBOLS, TypeParameter.class,
+                    (n, ctx) -> SymbolsExtractVisitor.INSTANCE.extract(n, ctx.getReport(TypesCsvReport.class, TypesCsvReport::new))),
+            Extractor.of(SYMBOLS, ClassOrInterfaceType.class,
+                    (n, ctx) -> SymbolsExtractVisitor.INSTANCE.extract(n, ctx.getReport(TypesCsvReport.class, TypesCsvReport::new))),
+            Extractor.of(SYMBOLS, VariableDeclarator.class,
+                    (n, ctx) -> SymbolsExtractVisitor.INSTANCE.extract(n, ctx.getReport(TypesCsvReport.class, TypesCsvReport::new))),
+            Extractor.of(SYMBOLS, UnparsableStmt.class,
+                    (n, ctx) -> SymbolsExtractVisitor.INSTANCE.extract(n)),
+            Extractor.of(DEFINITIONS, ClassOrInterfaceDeclaration.class,
+                    (n, ctx) -> DefinitionExtractVisitor.INSTANCE.extract(n, ctx.getReport(DefCsvReport.class, DefCsvReport::new)))
+    ));
+
+    private final List<Extractor<?>> extractors;
+
+    private final Map<Class<?>, List<Extractor<?>>> extractorsByNodeType = new ConcurrentHashMap<>();
+
+    public ExtractionEngine(List<Extractor<?>> extractors) {
+        this.extractors = List.copyOf(extractors);
+    }
+
+    public ExtractionEngine with(Extractor<?> extractor) {
+        List<Extractor<?>> all = new ArrayList<>(extractors);
+        all.add(extractor);
+        return new ExtractionEngine(all);
+    }
+
+    /**
+     * The time every extractor took is recorded with {@link RunMetrics} once the whole tree was walked.
+     */
+    public void run(Node root, ExtractionContext context) {
+        run(root, Collections.emptySet(), context);
+    }
+
+    /**
+     * Same as {@link #run(Node, ExtractionContext)} but leaves out the subtrees of the excluded nodes, which are
+     * compared by identity, for them to be run apart. Both go through this walk, so a file split in parts visits
+     * the same nodes as when it is not.
+     */
+    public void run(Node root, Set<Node> excluded, ExtractionContext context) {
+        Deque<Node> pending = new ArrayDeque<>();
+        Deque<Node> postOrder = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            postOrder.push(node);
+            for (Node child : node.getChildNodes()) {
+                if (!excluded.contains(child)) {
+                    pending.push(child);
+                }
+            }
+        }
+        Map<String, long[]> timings = new HashMap<>();
+        while (!postOrder.isEmpty()) {
+            dispatch(postOrder.pop(), context, timings);
+        }
+        recordTimings(timings);
+    }
+
+    private static void recordTimings(Map<String, long[]> timings) {
+        timings.forEach((name, timing) -> RunMetrics.INSTANCE.recordVisitor(name, timing[0], timing[1]));
+    }
+
+    private void dispatch(Node node, ExtractionContext context, Map<String, long[]> timings) {
+        for (Extractor<?> extractor : getExtractors(node.getClass())) {
+            long start = System.nanoTime();
+            extract(extractor, node, context);
+            long[] timing = timings.computeIfAbsent(extractor.getName(), name -> new long[2]);
+            timing[0]++;
+            timing[1] += System.nanoTime() - start;
+        }
+    }
+
+    private static <N extends Node> void extract(Extractor<N> extractor, Node node, ExtractionContext context) {
+        extractor.extract(extractor.getNodeType().cast(node), context);
+    }
+
+    private List<Extractor<?>> getExtractors(Class<?> nodeType) {
+        return extractorsByNodeType.computeIfAbsent(nodeType, this::findExtractors);
+    }
+
+    private List<Extractor<?>> findExtractors(Class<?> nodeType) {
+        List<Extractor<?>> matching = new ArrayList<>();
+        for (Extractor<?> extractor : extractors) {
+            if (extractor.getNodeType().isAssignableFrom(nodeType)) {
+                matching.add(extractor);
+            }
+        }
+        return matching;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.apixandru.java.visitors;
+
+import com.github.javaparser.ast.Node;
+
+import java.util.function.BiConsumer;
+
+public interface Extractor<N extends Node> {
+
+    static <N extends Node> Extractor<N> of(Class<N> nodeType, BiConsumer<N, ExtractionContext> action) {
+        return of(nodeType.getSimpleName(), nodeType, action);
+    }
+
+    /**
+     * @param name what the extractor is timed as, extractors sharing a name are timed together
+     */
+    static <N extends Node> Extractor<N> of(String name, Class<N> nodeType, BiConsumer<N, ExtractionContext> action) {
+        return new Extractor<>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Class<N> getNodeType() {
+                return nodeType;
+            }
+
+            @Override
+            public void extract(N node, ExtractionContext context) {
+                action.accept(node, context);
+            }
+        };
+    }
+
+    default String getName() {
+        return getNodeType().getSimpleName();
+    }
+
+    Class<N> getNodeType();
+
+    void extract(N node, ExtractionContext context);
+
+}
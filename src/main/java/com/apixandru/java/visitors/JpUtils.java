@@ -1,21 +1,35 @@
 package com.apixandru.java.visitors;
 
+import com.apixandru.util.Symbol;
+import com.apixandru.util.SymbolTable;
 import com.github.javaparser.*;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.nodeTypes.NodeWithRange;
 import com.github.javaparser.ast.type.ArrayType;
 import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeIndex;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
 import java.util.Optional;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
 public final class JpUtils {
 
+    private static final DataKey<Symbol> FULLY_QUALIFIED_NAME = new DataKey<>() {
+    };
+    private static final DataKey<Symbol> PARAMETER_TYPES = new DataKey<>() {
+    };
+
     private JpUtils() {
     }
 
@@ -66,6 +80,36 @@ public final class JpUtils {
         }
     }
 
+    /**
+     * Built once per declaration, which the threads reporting the files that use it may share.
+     */
+    public static Symbol getFullyQualifiedName(TypeDeclaration<?> type) {
+        synchronized (type) {
+            if (!type.containsData(FULLY_QUALIFIED_NAME)) {
+                String name = type.getFullyQualifiedName()
+                        .orElseThrow(() -> new IllegalArgumentException("Missing fully qualified name!"));
+                type.setData(FULLY_QUALIFIED_NAME, SymbolTable.INSTANCE.symbol(name));
+            }
+            return type.getData(FULLY_QUALIFIED_NAME);
+        }
+    }
+
+    /**
+     * The qualified types of the parameters separated by commas, resolved once per declaration.
+     */
+    public static Symbol getParameterTypes(MethodDeclaration method) {
+        synchronized (method) {
+            if (!method.containsData(PARAMETER_TYPES)) {
+                String types = method.getParameters()
+                        .stream()
+                        .map(JpUtils::getQualifiedName)
+                        .collect(joining(","));
+                method.setData(PARAMETER_TYPES, SymbolTable.INSTANCE.symbol(types));
+            }
+            return method.getData(PARAMETER_TYPES);
+        }
+    }
+
     static Node getNodeAt(int line, int column, CompilationUnit cu) {
         return getNodeAt(line, column, cu.findRootNode());
     }
@@ -110,10 +154,25 @@ public final class JpUtils {
         }
     }
 
+    /**
+     * Parses already loaded source, the unit gets the path as storage just as if the file had been parsed.
+     */
+    public static CompilationUnit parse(JavaParser parser, Path path, Provider provider) {
+        ParseResult<CompilationUnit> result = parser.parse(ParseStart.COMPILATION_UNIT, provider);
+        if (result.isSuccessful()) {
+            //noinspection OptionalGetWithoutIsPresent
+            CompilationUnit compilationUnit = result.getResult().get();
+            compilationUnit.setStorage(path, UTF_8);
+            return compilationUnit;
+        }
+        throw new ParseProblemException(result.getProblems());
+    }
+
+    /**
+     * The key {@link TypeIndex} knows the file of the unit by.
+     */
     public static String findFilePath(CompilationUnit compilationUnit) {
-        return findPath(compilationUnit)
-                .toFile()
-                .getAbsolutePath();
+        return TypeIndex.toKey(findPath(compilationUnit));
     }
 
     public static Path findPath(CompilationUnit compilationUnit) {
@@ -1,5 +1,8 @@
 package com.apixandru.java.visitors;
 
+import com.apixandru.util.RowWriterFactory;
+import com.apixandru.util.Symbol;
+import com.apixandru.util.SymbolTable;
 import com.github.javaparser.Position;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
@@ -11,7 +14,6 @@ import java.io.File;
 import java.util.List;
 
 import static com.apixandru.java.visitors.JpUtils.getStart;
-import static java.util.stream.Collectors.toList;
 
 public class MethodCsvReport extends AbstractCsvReport {
 
@@ -19,30 +21,30 @@ public class MethodCsvReport extends AbstractCsvReport {
         super(fakeOutput, "lines");
     }
 
+    public MethodCsvReport(File fakeOutput, RowWriterFactory writerFactory) {
+        super(fakeOutput, "lines", writerFactory);
+    }
+
     public void add(NodeWithRange<?> node, ResolvedReferenceTypeDeclaration declaration) {
-        writeRegular(node, declaration.getQualifiedName(), "", "", "", "");
+        writeRegular(node, SymbolTable.INSTANCE.symbol(declaration.getQualifiedName()), "", "", "", "");
     }
 
     public void add(NodeWithRange<?> node, TypeDeclaration<?> owner, MethodDeclaration wrappedNode) {
-        SimpleName wrappedNodeName = wrappedNode.getName();
-
-        List<String> parameters = wrappedNode.getParameters()
-                .stream()
-                .map(JpUtils::getQualifiedName)
-                .collect(toList());
-
-        String fullyQualifiedOwnerName = owner.getFullyQualifiedName().get();
-
-        add(node, wrappedNodeName, parameters, fullyQualifiedOwnerName);
+        add(node, wrappedNode.getName(), JpUtils.getParameterTypes(wrappedNode), JpUtils.getFullyQualifiedName(owner));
     }
 
     public void add(NodeWithRange<?> node, SimpleName name, List<String> params, String fullyQualifiedOwnerName) {
+        SymbolTable symbols = SymbolTable.INSTANCE;
+        add(node, name, symbols.symbol(String.join(",", params)), symbols.symbol(fullyQualifiedOwnerName));
+    }
+
+    private void add(NodeWithRange<?> node, SimpleName name, Symbol parameterTypes, Symbol owner) {
         Position nameStart = getStart(name);
 
         writeRegular(node,
-                fullyQualifiedOwnerName,
+                owner,
                 name,
-                String.join(",", params),
+                parameterTypes,
                 nameStart.line,
                 nameStart.column
         );
@@ -1,5 +1,6 @@
 package com.apixandru.java.visitors;
 
+import com.apixandru.java.metrics.RunMetrics;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
@@ -7,6 +8,7 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedParameterDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
@@ -14,6 +16,7 @@ import com.github.javaparser.resolution.declarations.ResolvedTypeDeclaration;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
 import com.github.javaparser.symbolsolver.javaparsermodel.declarations.JavaParserMethodDeclaration;
 import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionMethodDeclaration;
+import io.micrometer.core.instrument.Counter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,15 +26,44 @@ public class MethodResolverVisitor extends VoidVisitorAdapter<MethodCsvReport> {
 
     public static final MethodResolverVisitor INSTANCE = new MethodResolverVisitor();
 
+    private static final Counter resolved = RunMetrics.INSTANCE.resolutions("method", "resolved");
+    private static final Counter unsolved = RunMetrics.INSTANCE.resolutions("method", "unsolved");
+    private static final Counter failed = RunMetrics.INSTANCE.resolutions("method", "failed");
+
     @Override
     public void visit(MethodCallExpr n, MethodCsvReport arg) {
         super.visit(n, arg);
+        extract(n, arg);
+    }
+
+    /**
+     * The method called, when it resolves, even if it could not be reported.
+     */
+    Optional<ResolvedMethodDeclaration> extract(MethodCallExpr n, MethodCsvReport arg) {
         Optional<Expression> scope = n.getScope();
 
+        Optional<String> missingType = scope.flatMap(MethodResolverVisitor::findMissingType);
+        if (missingType.isPresent()) {
+            String message = "Unsolved symbol : " + missingType.get();
+            MissingSymbols.INSTANCE.count(n, missingType.get());
+            unsolved.increment();
+            arg.writeError(n, "Cannot resolve " + n, message);
+            arg.writeError(scope.get(), "Cannot resolve " + scope.get(), message);
+            return Optional.empty();
+        }
+
+        ResolvedMethodDeclaration callee = null;
         try {
-            ResolvedMethodDeclaration resolve = n.resolve();
-            handle(n, arg, resolve);
+            callee = n.resolve();
+            handle(n, arg, callee);
+            resolved.increment();
         } catch (Exception ex) {
+            if (ex instanceof UnsolvedSymbolException) {
+                MissingSymbols.INSTANCE.count(n, ((UnsolvedSymbolException) ex).getName());
+                unsolved.increment();
+            } else {
+                failed.increment();
+            }
             arg.writeError(n, "Cannot resolve " + n, getMessage(ex));
         }
 
@@ -44,6 +76,52 @@ public class MethodResolverVisitor extends VoidVisitorAdapter<MethodCsvReport> {
                 arg.writeError(expression, "Cannot resolve " + expression, getMessage(ex));
             }
         }
+        return Optional.ofNullable(callee);
+    }
+
+    /**
+     * The name of the type a static call is made on, when that type cannot be found, which is told without going
+     * through the exceptions of {@link MethodCallExpr#resolve()}. A name that may also stand for a variable or a
+     * field is left to the resolution, as is a member of a type that resolves, {@code TimeUnit.SECONDS} is a field.
+     */
+    private static Optional<String> findMissingType(Expression scope) {
+        Optional<String> name = getTypeName(scope);
+        Optional<DelegatingSymbolResolver> resolver = DelegatingSymbolResolver.of(scope);
+        if (name.isEmpty() || resolver.isEmpty()
+                || resolver.get().tryToSolveType(scope, name.get()).isPresent()) {
+            return Optional.empty();
+        }
+        String typeName = name.get();
+        int dot = typeName.lastIndexOf('.');
+        if (dot == -1) {
+            return resolver.get().mayBeValue(scope, typeName) ? Optional.empty() : name;
+        }
+        String first = typeName.substring(0, typeName.indexOf('.'));
+        if (resolver.get().mayBeValue(scope, first)
+                || resolver.get().tryToSolveType(scope, typeName.substring(0, dot)).isPresent()) {
+            return Optional.empty();
+        }
+        return name;
+    }
+
+    /**
+     * The scope as a type name, {@code Map.Entry} or {@code java.util.Collections}, when it is a chain of names
+     * ending with a capitalized one.
+     */
+    private static Optional<String> getTypeName(Expression scope) {
+        StringBuilder name = new StringBuilder();
+        Expression current = scope;
+        while (current.isFieldAccessExpr()) {
+            FieldAccessExpr fieldAccess = current.asFieldAccessExpr();
+            name.insert(0, '.' + fieldAccess.getNameAsString());
+            current = fieldAccess.getScope();
+        }
+        if (!current.isNameExpr()) {
+            return Optional.empty();
+        }
+        name.insert(0, current.asNameExpr().getNameAsString());
+        String identifier = name.substring(name.lastIndexOf(".") + 1);
+        return Character.isUpperCase(identifier.charAt(0)) ? Optional.of(name.toString()) : Optional.empty();
     }
 
     private ResolvedReferenceType getResolvedType(Expression expression) {
@@ -0,0 +1,232 @@
+package com.apixandru.java.visitors;
+
+import com.apixandru.util.CsvUtils;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithExtends;
+import com.github.javaparser.ast.nodeTypes.NodeWithImplements;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.opencsv.CSVWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.apixandru.util.CsvUtils.newCsvWriter;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The types that could not be found, shared by all the files of a run.
+ * <p>
+ * A name is only remembered as missing in the context it was looked up in: the single type import it comes from,
+ * or the package of the file when it is written qualified, since a type of that package may be its first part. It is
+ * not remembered at all when a type or type parameter of the same compilation unit, or a member type an enclosing
+ * type may inherit, could shadow it. Every reference that ends up unresolved is counted, so the dependencies worth
+ * adding can be listed.
+ */
+public final class MissingSymbols {
+
+    public static final MissingSymbols INSTANCE = new MissingSymbols();
+
+    private static final Logger log = LoggerFactory.getLogger(MissingSymbols.class);
+
+    private static final DataKey<Set<String>> DECLARED_NAMES = new DataKey<>() {
+    };
+
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();
+    private final Map<String, LongAdder> occurrences = new ConcurrentHashMap<>();
+
+    private MissingSymbols() {
+    }
+
+    public boolean isKnownMissing(ClassOrInterfaceType type) {
+        return isKnownMissing(type, type.getNameWithScope());
+    }
+
+    /**
+     * @param name a type name as written at the node, possibly qualified
+     */
+    public boolean isKnownMissing(Node node, String name) {
+        return findMissingKey(node, name)
+                .filter(missing::contains)
+                .isPresent();
+    }
+
+    /**
+     * Only for a type that was looked up and not found, not for one whose lookup failed on the way.
+     */
+    public void markMissing(ClassOrInterfaceType type) {
+        markMissing(type, type.getNameWithScope());
+    }
+
+    /**
+     * @param name a type name as written at the node, possibly qualified
+     */
+    public void markMissing(Node node, String name) {
+        findMissingKey(node, name).ifPresent(missing::add);
+    }
+
+    /**
+     * Names may have been added since they were found missing.
+     */
+    public void forgetMissing() {
+        missing.clear();
+    }
+
+    /**
+     * Forgets the missing names and their counts, for the next library of a batch.
+     */
+    public void clear() {
+        missing.clear();
+        occurrences.clear();
+    }
+
+    /**
+     * Counts a reference that could not be resolved, under its qualified name when it can be told from the imports.
+     */
+    public void count(Node node, String name) {
+        String symbol = findQualifiedName(node, name).orElse(name);
+        occurrences.computeIfAbsent(symbol, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * The fully qualified name the given name stands for wherever it is used in the compilation unit of the node.
+     */
+    Optional<String> findQualifiedName(Node node, String name) {
+        Optional<CompilationUnit> compilationUnit = node.findCompilationUnit();
+        if (compilationUnit.isEmpty()) {
+            return Optional.empty();
+        }
+        String first = getFirstPart(name);
+        if (getDeclaredNames(compilationUnit.get()).contains(first)) {
+            return Optional.empty();
+        }
+        Optional<ImportDeclaration> importDeclaration = findSingleTypeImport(compilationUnit.get(), first);
+        if (importDeclaration.isPresent()) {
+            return Optional.of(importDeclaration.get().getNameAsString() + name.substring(first.length()));
+        }
+        if (isQualified(name, first)) {
+            return Optional.of(name);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The name along with the context it was looked up in, when it stands for the same type wherever it is used in
+     * that context.
+     */
+    private Optional<String> findMissingKey(Node node, String name) {
+        Optional<CompilationUnit> compilationUnit = node.findCompilationUnit();
+        if (compilationUnit.isEmpty() || mayInheritMemberTypes(node)) {
+            return Optional.empty();
+        }
+        String first = getFirstPart(name);
+        if (getDeclaredNames(compilationUnit.get()).contains(first)) {
+            return Optional.empty();
+        }
+        Optional<ImportDeclaration> importDeclaration = findSingleTypeImport(compilationUnit.get(), first);
+        if (importDeclaration.isPresent()) {
+            return Optional.of("import " + importDeclaration.get().getNameAsString() + name.substring(first.length()));
+        }
+        if (isQualified(name, first)) {
+            String packageName = compilationUnit.get().getPackageDeclaration()
+                    .map(PackageDeclaration::getNameAsString)
+                    .orElse("");
+            return Optional.of("package " + packageName + " " + name);
+        }
+        return Optional.empty();
+    }
+
+    private static String getFirstPart(String name) {
+        int dot = name.indexOf('.');
+        return dot == -1 ? name : name.substring(0, dot);
+    }
+
+    private static boolean isQualified(String name, String first) {
+        return first.length() < name.length() && Character.isLowerCase(first.charAt(0));
+    }
+
+    private static Optional<ImportDeclaration> findSingleTypeImport(CompilationUnit compilationUnit, String first) {
+        for (ImportDeclaration importDeclaration : compilationUnit.getImports()) {
+            if (!importDeclaration.isAsterisk() && !importDeclaration.isStatic()
+                    && importDeclaration.getName().getIdentifier().equals(first)) {
+                return Optional.of(importDeclaration);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether the node is inside a type that extends or implements another one, whose member types shadow the
+     * imports and can only be told by resolving it.
+     */
+    private static boolean mayInheritMemberTypes(Node node) {
+        for (Node ancestor = node.getParentNode().orElse(null); ancestor != null; ancestor = ancestor.getParentNode().orElse(null)) {
+            if (ancestor instanceof NodeWithExtends && !((NodeWithExtends<?>) ancestor).getExtendedTypes().isEmpty()
+                    || ancestor instanceof NodeWithImplements && !((NodeWithImplements<?>) ancestor).getImplementedTypes().isEmpty()
+                    || ancestor instanceof ObjectCreationExpr && ((ObjectCreationExpr) ancestor).getAnonymousClassBody().isPresent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the names the unit declares up front, see {@link TypeResolutionCache#prepare}.
+     */
+    static void prepare(CompilationUnit compilationUnit) {
+        getDeclaredNames(compilationUnit);
+    }
+
+    private static Set<String> getDeclaredNames(CompilationUnit compilationUnit) {
+        synchronized (compilationUnit) {
+            if (!compilationUnit.containsData(DECLARED_NAMES)) {
+                Set<String> names = compilationUnit.findAll(TypeDeclaration.class).stream()
+                        .map(TypeDeclaration::getNameAsString)
+                        .collect(toCollection(HashSet::new));
+                compilationUnit.findAll(TypeParameter.class).forEach(typeParameter -> names.add(typeParameter.getNameAsString()));
+                compilationUnit.setData(DECLARED_NAMES, names);
+            }
+            return compilationUnit.getData(DECLARED_NAMES);
+        }
+    }
+
+    public List<Map.Entry<String, Long>> getTop(int limit) {
+        return occurrences.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .collect(toList());
+    }
+
+    public void writeReport(File file, int limit) {
+        List<Map.Entry<String, Long>> top = getTop(limit);
+        file.getParentFile().mkdirs();
+        try (CSVWriter writer = newCsvWriter(file)) {
+            CsvUtils.write(writer, "symbol", "occurrences");
+            for (Map.Entry<String, Long> entry : top) {
+                CsvUtils.write(writer, entry.getKey(), entry.getValue());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write " + file, ex);
+        }
+        log.info("{} missing symbols, the top {} written to {}", occurrences.size(), top.size(), file);
+    }
+
+}
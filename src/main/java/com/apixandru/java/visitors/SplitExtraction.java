@@ -0,0 +1,111 @@
+package com.apixandru.java.visitors;
+
+import com.apixandru.util.BufferingRowWriterFactory;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Extracts the compilation units of at least {@code minLines} lines in parts, one per method, constructor, field or
+ * initializer of their types, which run on a work stealing pool while the thread that was given the unit extracts
+ * what is left of it. A single huge file, a generated parser for instance, then takes about as long as its
+ * biggest method instead of holding up the end of the run on its own.
+ * <p>
+ * The rows of every part are buffered and written once all parts are done, what is left of the unit first and then
+ * the parts in source order, to the same reports a single walk would have written. The data the unit keeps for
+ * resolving is attached before the parts are submitted, so they only ever read it.
+ * <p>
+ * Meant to be created once per run, its pool is kept for every library of a batch.
+ */
+public class SplitExtraction implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SplitExtraction.class);
+
+    private final ExtractionEngine engine;
+    private final int minLines;
+    private final ForkJoinPool pool;
+
+    public SplitExtraction(ExtractionEngine engine, int minLines, int parallelism) {
+        this.engine = engine;
+        this.minLines = minLines;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public static int countLines(CompilationUnit compilationUnit) {
+        return compilationUnit.getRange()
+                .map(range -> range.end.line)
+                .orElse(0);
+    }
+
+    public void run(CompilationUnit compilationUnit, ExtractionContext context) {
+        if (countLines(compilationUnit) < minLines) {
+            engine.run(compilationUnit, context);
+            return;
+        }
+        TypeResolutionCache.prepare(compilationUnit);
+        MissingSymbols.prepare(compilationUnit);
+        List<Node> parts = findParts(compilationUnit);
+        List<BufferingRowWriterFactory> buffers = new ArrayList<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Node part : parts) {
+            BufferingRowWriterFactory buffer = new BufferingRowWriterFactory();
+            buffers.add(buffer);
+            tasks.add(pool.submit(() -> extract(part, Collections.emptySet(), buffer, context)));
+        }
+
+        Set<Node> excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+        excluded.addAll(parts);
+        BufferingRowWriterFactory rest = new BufferingRowWriterFactory();
+        buffers.add(0, rest);
+        extract(compilationUnit, excluded, rest, context);
+        tasks.forEach(ForkJoinTask::join);
+
+        BufferingRowWriterFactory.replay(buffers, context.getOutputFile(), context.getWriterFactory());
+        log.debug("Extracted {} in {} parts", context.getOutputFile(), parts.size());
+    }
+
+    private void extract(Node root, Set<Node> excluded, BufferingRowWriterFactory buffer, ExtractionContext context) {
+        try (ExtractionContext partContext = new ExtractionContext(context.getOutputFile(), buffer, context.getCallGraph().orElse(null))) {
+            engine.run(root, excluded, partContext);
+        }
+    }
+
+    /**
+     * The members of the top level types, nested types are broken down to their own members.
+     */
+    static List<Node> findParts(CompilationUnit compilationUnit) {
+        List<Node> parts = new ArrayList<>();
+        for (TypeDeclaration<?> type : compilationUnit.getTypes()) {
+            addParts(type, parts);
+        }
+        return parts;
+    }
+
+    private static void addParts(TypeDeclaration<?> type, List<Node> parts) {
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member instanceof TypeDeclaration) {
+                addParts((TypeDeclaration<?>) member, parts);
+            } else {
+                parts.add(member);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+}
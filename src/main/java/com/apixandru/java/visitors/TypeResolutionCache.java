@@ -0,0 +1,258 @@
+package com.apixandru.java.visitors;
+
+import com.apixandru.java.metrics.RunMetrics;
+import com.apixandru.util.Symbol;
+import com.apixandru.util.SymbolTable;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedTypeDeclaration;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers how every {@link ClassOrInterfaceType} spelling resolved, successfully or not, so that a type named
+ * over and over in a compilation unit is only resolved once. Failures are kept as messages, not exceptions.
+ * <p>
+ * The results live on the compilation unit, which fixes the package and the imports, and are keyed by the
+ * innermost type or generic method around the reference and by the name with its scope. That is what the symbol
+ * solver looks at, except for local classes, which are assumed not to shadow the other types of their file.
+ * Names are kept as {@link SymbolTable} symbols, so every unit refers to the same copy of each. Symbols compare by
+ * identity, an entry left over from an earlier run never matches a name of the current one.
+ */
+public final class TypeResolutionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TypeResolutionCache.class);
+
+    private static final DataKey<Map<Key, Resolution>> RESOLUTIONS = new DataKey<>() {
+    };
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private static final Counter resolved = RunMetrics.INSTANCE.resolutions("type", "resolved");
+    private static final Counter unsolved = RunMetrics.INSTANCE.resolutions("type", "unsolved");
+    private static final Counter unsupported = RunMetrics.INSTANCE.resolutions("type", "unsupported");
+
+    static {
+        RunMetrics.INSTANCE.countFunction("type.cache", hits, LongAdder::sum, "result", "hit");
+        RunMetrics.INSTANCE.countFunction("type.cache", misses, LongAdder::sum, "result", "miss");
+    }
+
+    private TypeResolutionCache() {
+    }
+
+    /**
+     * Resolves the type without building an exception when it cannot be found, unless the compilation unit was not
+     * set up with a {@link DelegatingSymbolResolver}.
+     */
+    public static Resolution resolve(ClassOrInterfaceType type) {
+        Optional<CompilationUnit> compilationUnit = type.findCompilationUnit();
+        if (compilationUnit.isEmpty()) {
+            misses.increment();
+            return count(doResolve(type));
+        }
+        Map<Key, Resolution> resolutions = getResolutions(compilationUnit.get());
+        Key key = new Key(findContext(type), SymbolTable.INSTANCE.symbol(type.getNameWithScope()));
+        Resolution resolution = resolutions.get(key);
+        if (resolution != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            resolution = count(doResolve(type));
+            resolutions.put(key, resolution);
+        }
+        return resolution;
+    }
+
+    /**
+     * The scope of a type that failed to resolve is usually a package, {@code java} in {@code java.util.Map} for
+     * instance. Finds the innermost type that this one is the scope of and that resolves, {@code java.util.Map} here.
+     */
+    public static ClassOrInterfaceType findResolvableOuterType(ClassOrInterfaceType type) {
+        Optional<Node> parent = type.getParentNode();
+        while (parent.isPresent() && parent.get() instanceof ClassOrInterfaceType) {
+            ClassOrInterfaceType outer = (ClassOrInterfaceType) parent.get();
+            try {
+                if (resolve(outer).isResolved()) {
+                    return outer; // it's resolvable, this is the real deal guys!
+                }
+            } catch (Exception ex) {
+                // not resolvable either, keep climbing
+            }
+            parent = outer.getParentNode();
+        }
+        return null;
+    }
+
+    private static Resolution doResolve(ClassOrInterfaceType type) {
+        Optional<DelegatingSymbolResolver> resolver = DelegatingSymbolResolver.of(type);
+        try {
+            if (resolver.isEmpty()) {
+                return Resolution.resolved(type.resolve().asReferenceType().getQualifiedName());
+            }
+            Optional<ResolvedTypeDeclaration> declaration = resolver.get().tryToSolveType(type);
+            if (declaration.isEmpty()) {
+                return Resolution.unsolved("Unsolved symbol : " + type.getNameWithScope());
+            }
+            if (declaration.get().isTypeParameter()) {
+                return Resolution.unsupported("Type variable " + type.getNameWithScope() + " is not a reference type");
+            }
+            return Resolution.resolved(declaration.get().getQualifiedName());
+        } catch (UnsolvedSymbolException ex) {
+            return Resolution.unsolved(ex.getMessage());
+        } catch (UnsupportedOperationException ex) {
+            return Resolution.unsupported(ex.getMessage());
+        }
+    }
+
+    /**
+     * Only actual resolutions are counted, cache hits are counted apart.
+     */
+    private static Resolution count(Resolution resolution) {
+        if (resolution.isResolved()) {
+            resolved.increment();
+        } else if (resolution.isUnsupported()) {
+            unsupported.increment();
+        } else {
+            unsolved.increment();
+        }
+        return resolution;
+    }
+
+    /**
+     * Attaches the cache to the unit up front, for its parts to only ever read the data of the unit while they are
+     * resolved on different threads.
+     */
+    static void prepare(CompilationUnit compilationUnit) {
+        getResolutions(compilationUnit);
+    }
+
+    private static Map<Key, Resolution> getResolutions(CompilationUnit compilationUnit) {
+        synchronized (compilationUnit) {
+            if (!compilationUnit.containsData(RESOLUTIONS)) {
+                compilationUnit.setData(RESOLUTIONS, new ConcurrentHashMap<>());
+            }
+            return compilationUnit.getData(RESOLUTIONS);
+        }
+    }
+
+    private static Node findContext(Node node) {
+        Optional<Node> parent = node.getParentNode();
+        while (parent.isPresent()) {
+            Node candidate = parent.get();
+            if (candidate instanceof TypeDeclaration) {
+                return candidate;
+            }
+            if (candidate instanceof CallableDeclaration && ((CallableDeclaration<?>) candidate).isGeneric()) {
+                return candidate;
+            }
+            parent = candidate.getParentNode();
+        }
+        return node.findRootNode();
+    }
+
+    public static double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public static void logStats() {
+        log.info("Type resolution cache: {} hits, {} misses, {}% hit rate",
+                hits.sum(), misses.sum(), Math.round(getHitRate() * 100));
+    }
+
+    /**
+     * Counts hits and misses from zero again, for the next library of a batch.
+     */
+    public static void resetStats() {
+        hits.reset();
+        misses.reset();
+    }
+
+    private static final class Key {
+
+        private final Node context;
+        private final Symbol nameWithScope;
+
+        Key(Node context, Symbol nameWithScope) {
+            this.context = context;
+            this.nameWithScope = nameWithScope;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return context == other.context && nameWithScope == other.nameWithScope;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(context) + nameWithScope.getId();
+        }
+
+    }
+
+    /**
+     * Either the qualified name of a type or why it could not be resolved.
+     */
+    public static final class Resolution {
+
+        private final Symbol qualifiedName;
+        private final String error;
+        private final boolean unsupported;
+
+        private Resolution(Symbol qualifiedName, String error, boolean unsupported) {
+            this.qualifiedName = qualifiedName;
+            this.error = error;
+            this.unsupported = unsupported;
+        }
+
+        static Resolution resolved(String qualifiedName) {
+            return new Resolution(SymbolTable.INSTANCE.symbol(qualifiedName), null, false);
+        }
+
+        static Resolution unsolved(String error) {
+            return new Resolution(null, error, false);
+        }
+
+        static Resolution unsupported(String error) {
+            return new Resolution(null, error, true);
+        }
+
+        public boolean isResolved() {
+            return qualifiedName != null;
+        }
+
+        public Symbol getQualifiedName() {
+            return qualifiedName;
+        }
+
+        /**
+         * Resolving found something that is not a reference type, a type variable for instance.
+         */
+        public boolean isUnsupported() {
+            return unsupported;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.apixandru.java.visitors;
 
+import com.apixandru.util.RowWriterFactory;
+
 import java.io.File;
 import java.util.List;
 
@@ -9,6 +11,10 @@ public class TypesCsvReport extends AbstractCsvReport {
         super(fakeOutput, "types");
     }
 
+    public TypesCsvReport(File fakeOutput, RowWriterFactory writerFactory) {
+        super(fakeOutput, "types", writerFactory);
+    }
+
     @Override
     protected List<Object> getWriterHeader() {
         return List.of("line", "col", "type");
@@ -0,0 +1,257 @@
+package com.apixandru.util;
+
+import com.opencsv.CSVWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands rows over to a single writer thread through a lock-free queue. The writer thread owns every file and writes
+ * through default size buffers. Unless durability is {@link Durability#PER_ROW}, it flushes every report with rows
+ * not yet flushed once {@code flushThreshold} bytes were written to all of them together, and a report when it is
+ * closed, so the rows held in memory do not grow with the number of reports open.
+ * <p>
+ * Producers are only slowed down when the writer falls more than {@value #MAX_PENDING} commands behind.
+ */
+public class AsyncCsvRowWriterFactory implements RowWriterFactory, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncCsvRowWriterFactory.class);
+
+    private static final int MAX_PENDING = 1 << 16;
+
+    private final Durability durability;
+    private final int flushThreshold;
+
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread thread;
+
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    private long rows;
+    private long unflushedBytes;
+    private final Set<Target> unflushed = new LinkedHashSet<>();
+
+    /**
+     * @param flushThreshold bytes written to all the reports together after which they are flushed
+     */
+    public AsyncCsvRowWriterFactory(Durability durability, int flushThreshold) {
+        this.durability = durability;
+        this.flushThreshold = flushThreshold;
+        this.thread = new Thread(this::run, "report-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public RowWriter open(File fakeOutput, String name, List<Object> header) {
+        Target target = new Target(RowWriterFactory.getFile(fakeOutput, name), header);
+        return new RowWriter() {
+            @Override
+            public void write(Object[] row) {
+                enqueue(() -> target.write(row));
+            }
+
+            @Override
+            public void close() {
+                enqueue(target::close);
+            }
+        };
+    }
+
+    /**
+     * Rows and closes queued but not yet written.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    private void enqueue(Runnable command) {
+        if (failure != null) {
+            throw new IllegalStateException("Report writer failed", failure);
+        }
+        commands.add(command);
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            while (pending.get() > MAX_PENDING / 2) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(100_000);
+            }
+        } else if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Runnable command = commands.poll();
+            if (command != null) {
+                execute(command);
+                pending.decrementAndGet();
+            } else if (closed) {
+                return;
+            } else {
+                sleeping = true;
+                if (commands.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    private void execute(Runnable command) {
+        try {
+            command.run();
+        } catch (RuntimeException ex) {
+            if (failure == null) {
+                log.error("Report writer failed", ex);
+                failure = ex;
+            }
+        }
+    }
+
+    /**
+     * Waits for every queued row to be written. Reports that were not closed are left open.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        log.info("Wrote {} rows", rows);
+        if (failure != null) {
+            throw new IllegalStateException("Report writer failed", failure);
+        }
+    }
+
+    private void flushAll() {
+        unflushed.forEach(Target::flush);
+        unflushed.clear();
+        unflushedBytes = 0;
+    }
+
+    /**
+     * Adds the UTF-8 length of what goes through to the bytes not yet flushed, only ever used by the writer thread.
+     */
+    private final class CountingWriter extends FilterWriter {
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            unflushedBytes += utf8Length((char) c);
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            out.write(chars, off, len);
+            for (int i = off; i < off + len; i++) {
+                unflushedBytes += utf8Length(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            for (int i = off; i < off + len; i++) {
+                unflushedBytes += utf8Length(str.charAt(i));
+            }
+        }
+
+        /**
+         * A surrogate pair takes four bytes, two for each half.
+         */
+        private int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            return c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+
+    }
+
+    /**
+     * Only ever touched by the writer thread.
+     */
+    private final class Target {
+
+        private final File file;
+        private final List<Object> header;
+
+        private CSVWriter writer;
+
+        Target(File file, List<Object> header) {
+            this.file = file;
+            this.header = header;
+        }
+
+        void write(Object[] row) {
+            if (writer == null) {
+                file.getParentFile().mkdirs();
+                writer = newWriter();
+                CsvUtils.write(writer, header);
+            }
+            CsvUtils.write(writer, row);
+            rows++;
+            if (durability == Durability.PER_ROW) {
+                writer.flushQuietly();
+                unflushedBytes = 0;
+            } else {
+                unflushed.add(this);
+                if (unflushedBytes >= flushThreshold) {
+                    flushAll();
+                }
+            }
+        }
+
+        private CSVWriter newWriter() {
+            try {
+                return new CSVWriter(new CountingWriter(new BufferedWriter(new FileWriter(file))));
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        void flush() {
+            writer.flushQuietly();
+        }
+
+        void close() {
+            if (writer == null) {
+                return;
+            }
+            unflushed.remove(this);
+            try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace(); // no biggie
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.apixandru.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the rows of every report in memory until {@link #replay} writes them with another factory, for the parts of
+ * a file that are extracted on different threads. Not thread safe, each part has its own.
+ */
+public final class BufferingRowWriterFactory implements RowWriterFactory {
+
+    private final Map<String, Buffer> buffers = new LinkedHashMap<>();
+
+    @Override
+    public RowWriter open(File fakeOutput, String name, List<Object> header) {
+        return buffers.computeIfAbsent(name, key -> new Buffer(header));
+    }
+
+    /**
+     * Opens every report once and writes the rows of the buffers to it one buffer after the other, the reports are
+     * opened in the order they were first written to.
+     */
+    public static void replay(List<BufferingRowWriterFactory> factories, File fakeOutput, RowWriterFactory target) {
+        Map<String, List<Object>> headers = new LinkedHashMap<>();
+        for (BufferingRowWriterFactory factory : factories) {
+            factory.buffers.forEach((name, buffer) -> headers.putIfAbsent(name, buffer.header));
+        }
+        headers.forEach((name, header) -> {
+            try (RowWriter writer = target.open(fakeOutput, name, header)) {
+                for (BufferingRowWriterFactory factory : factories) {
+                    Buffer buffer = factory.buffers.get(name);
+                    if (buffer != null) {
+                        buffer.rows.forEach(writer::write);
+                    }
+                }
+            }
+        });
+    }
+
+    private static final class Buffer implements RowWriter {
+
+        private final List<Object> header;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        Buffer(List<Object> header) {
+            this.header = header;
+        }
+
+        @Override
+        public void write(Object[] row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void close() {
+            // kept for the replay
+        }
+
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.apixandru.util;
+
+import com.opencsv.CSVWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.apixandru.util.CsvUtils.newCsvWriter;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A report read back from the binary columnar format written by {@link ColumnarRowWriterFactory}, along with the
+ * dictionary of the strings of the whole library.
+ * <p>
+ * Layout, all counts and lengths being unsigned varints:
+ * <pre>
+ * report:     magic (int) version (byte)
+ *             columnCount name*
+ *             rowCount
+ *             per column: kind (byte) followed by rowCount varints,
+ *                         zigzag encoded numbers for {@link #KIND_INT} or dictionary ids for {@link #KIND_STRING}
+ * dictionary: dictionaryMagic (int) version (byte)
+ *             dictionarySize string*
+ * </pre>
+ * Every count and length read is checked against what is left of the file, and every string id against the
+ * dictionary, a corrupt file is rejected as a whole before anything is allocated for it.
+ */
+public final class ColumnarReport {
+
+    public static final String EXTENSION = ".jmc";
+    public static final String DICTIONARY_FILE = "strings.jmd";
+
+    static final int MAGIC = 0x4A4D4352; // JMCR
+    static final int DICTIONARY_MAGIC = 0x4A4D4344; // JMCD
+    static final int VERSION = 2;
+
+    static final byte KIND_INT = 0;
+    static final byte KIND_STRING = 1;
+
+    private final List<String> header;
+    private final String[] dictionary;
+    private final byte[] kinds;
+    private final int[][] columns;
+    private final int rowCount;
+
+    private ColumnarReport(List<String> header, String[] dictionary, byte[] kinds, int[][] columns, int rowCount) {
+        this.header = header;
+        this.dictionary = dictionary;
+        this.kinds = kinds;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    public static File getFile(File fakeOutput, String name) {
+        return new File(fakeOutput.getAbsolutePath() + "." + name + EXTENSION);
+    }
+
+    /**
+     * Reads the dictionary written next to the reports of a library, in its target directory.
+     */
+    public static String[] readDictionary(File targetDir) {
+        File file = new File(targetDir, DICTIONARY_FILE);
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != DICTIONARY_MAGIC || buffer.get() != VERSION) {
+                throw new IllegalStateException(file + " is not a columnar dictionary of version " + VERSION);
+            }
+            String[] dictionary = new String[readCount(buffer, 1)];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(buffer);
+            }
+            return dictionary;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read " + file, ex);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IllegalStateException(file + " is not a columnar dictionary, it is truncated or corrupt", ex);
+        }
+    }
+
+    public static ColumnarReport read(File file, String[] dictionary) {
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IllegalStateException(file + " is not a columnar report of version " + VERSION);
+            }
+            List<String> header = new ArrayList<>();
+            // a name of at least one byte and a kind byte per column
+            int columnCount = readCount(buffer, 2);
+            for (int i = 0; i < columnCount; i++) {
+                header.add(readString(buffer));
+            }
+            // a varint of at least one byte per column and row, and the kind bytes
+            int rowCount = readCount(buffer, 1);
+            if (columnCount == 0 && rowCount != 0
+                    || (long) columnCount * rowCount > buffer.remaining() - columnCount) {
+                throw new IllegalArgumentException(rowCount + " rows of " + columnCount + " columns cannot fit");
+            }
+            byte[] kinds = new byte[columnCount];
+            int[][] columns = new int[columnCount][rowCount];
+            for (int column = 0; column < columnCount; column++) {
+                kinds[column] = buffer.get();
+                if (kinds[column] != KIND_INT && kinds[column] != KIND_STRING) {
+                    throw new IllegalArgumentException("Unknown kind " + kinds[column] + " of column " + header.get(column));
+                }
+                int[] values = columns[column];
+                for (int row = 0; row < rowCount; row++) {
+                    int value = readVarInt(buffer);
+                    if (kinds[column] == KIND_STRING && (value < 0 || value >= dictionary.length)) {
+                        throw new IllegalArgumentException("String id " + value + " is not in the dictionary");
+                    }
+                    values[row] = kinds[column] == KIND_INT ? zigZagDecode(value) : value;
+                }
+            }
+            return new ColumnarReport(Collections.unmodifiableList(header), dictionary, kinds, columns, rowCount);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read " + file, ex);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IllegalStateException(file + " is not a columnar report, it is truncated or corrupt", ex);
+        }
+    }
+
+    public List<String> getHeader() {
+        return header;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumn(String name) {
+        int column = header.indexOf(name);
+        if (column == -1) {
+            throw new IllegalArgumentException("No column " + name + " in " + header);
+        }
+        return column;
+    }
+
+    public boolean isNumeric(int column) {
+        return kinds[column] == KIND_INT;
+    }
+
+    public int getInt(int row, int column) {
+        if (!isNumeric(column)) {
+            throw new IllegalArgumentException("Column " + header.get(column) + " is not numeric");
+        }
+        return columns[column][row];
+    }
+
+    public String getString(int row, int column) {
+        int value = columns[column][row];
+        return isNumeric(column) ? Integer.toString(value) : dictionary[value];
+    }
+
+    public void forEach(Consumer<String[]> rowConsumer) {
+        for (int row = 0; row < rowCount; row++) {
+            String[] values = new String[header.size()];
+            for (int column = 0; column < values.length; column++) {
+                values[column] = getString(row, column);
+            }
+            rowConsumer.accept(values);
+        }
+    }
+
+    /**
+     * Writes the report in the same layout the CSV writers produce.
+     */
+    public void writeCsv(File file) {
+        try (CSVWriter writer = newCsvWriter(file)) {
+            writer.writeNext(header.toArray(new String[0]));
+            forEach(writer::writeNext);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write " + file, ex);
+        }
+    }
+
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigZagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * A count of items taking at least {@code minBytes} each, which cannot be more than what is left of the buffer.
+     */
+    private static int readCount(ByteBuffer buffer, int minBytes) {
+        int count = readVarInt(buffer);
+        if (count < 0 || count > buffer.remaining() / minBytes) {
+            throw new IllegalArgumentException("Count " + count + " is past the end of the file");
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.apixandru.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.apixandru.util.ColumnarReport.DICTIONARY_MAGIC;
+import static com.apixandru.util.ColumnarReport.KIND_INT;
+import static com.apixandru.util.ColumnarReport.KIND_STRING;
+import static com.apixandru.util.ColumnarReport.MAGIC;
+import static com.apixandru.util.ColumnarReport.VERSION;
+import static com.apixandru.util.ColumnarReport.writeString;
+import static com.apixandru.util.ColumnarReport.writeVarInt;
+import static com.apixandru.util.ColumnarReport.zigZagEncode;
+
+/**
+ * Writes each report of a library as a {@link ColumnarReport}. Rows are kept in memory until the report is closed,
+ * then the columns are written one after the other as varints.
+ * <p>
+ * Strings are ids in a dictionary shared by every report of the library, the same type and package names showing
+ * up in most of them. The dictionary is written to {@link ColumnarReport#DICTIONARY_FILE} in the target directory
+ * when the factory is closed, the reports cannot be read before.
+ */
+public class ColumnarRowWriterFactory implements RowWriterFactory, Closeable {
+
+    private final Path targetDir;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public ColumnarRowWriterFactory(String targetDir) {
+        this.targetDir = new File(targetDir).toPath();
+    }
+
+    @Override
+    public RowWriter open(File fakeOutput, String name, List<Object> header) {
+        File file = ColumnarReport.getFile(fakeOutput, name);
+        List<Object[]> rows = new ArrayList<>();
+        return new RowWriter() {
+            @Override
+            public void write(Object[] row) {
+                rows.add(row);
+            }
+
+            @Override
+            public void close() {
+                file.getParentFile().mkdirs();
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                    writeReport(out, header, rows);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Cannot write " + file, ex);
+                }
+            }
+        };
+    }
+
+    private void writeReport(DataOutputStream out, List<Object> header, List<Object[]> rows) throws IOException {
+        int columnCount = header.size();
+        byte[] kinds = new byte[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            kinds[column] = isNumeric(rows, column) ? KIND_INT : KIND_STRING;
+        }
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, columnCount);
+        for (Object name : header) {
+            writeString(out, name.toString());
+        }
+        writeVarInt(out, rows.size());
+        for (int column = 0; column < columnCount; column++) {
+            out.writeByte(kinds[column]);
+            for (Object[] row : rows) {
+                Object value = row[column];
+                if (kinds[column] == KIND_INT) {
+                    writeVarInt(out, zigZagEncode(((Number) value).intValue()));
+                } else {
+                    writeVarInt(out, getId(value == null ? "" : value.toString()));
+                }
+            }
+        }
+    }
+
+    private int getId(String string) {
+        Integer id = ids.get(string);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(string, key -> nextId.getAndIncrement());
+    }
+
+    private static boolean isNumeric(List<Object[]> rows, int column) {
+        for (Object[] row : rows) {
+            Object value = row[column];
+            if (!(value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the dictionary, once every report was closed.
+     */
+    @Override
+    public void close() {
+        String[] dictionary = new String[nextId.get()];
+        ids.forEach((string, id) -> dictionary[id] = string);
+        Path file = targetDir.resolve(ColumnarReport.DICTIONARY_FILE);
+        try {
+            Files.createDirectories(targetDir);
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(DICTIONARY_MAGIC);
+                out.writeByte(VERSION);
+                writeVarInt(out, dictionary.length);
+                for (String string : dictionary) {
+                    writeString(out, string);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write " + file, ex);
+        }
+    }
+
+}
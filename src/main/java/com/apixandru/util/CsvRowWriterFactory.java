@@ -0,0 +1,52 @@
+package com.apixandru.util;
+
+import com.opencsv.CSVWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static com.apixandru.util.CsvUtils.newCsvWriter;
+import static com.apixandru.util.CsvUtils.write;
+
+/**
+ * Writes the rows on the calling thread.
+ */
+public class CsvRowWriterFactory implements RowWriterFactory {
+
+    public static final CsvRowWriterFactory BATCHED = new CsvRowWriterFactory(Durability.BATCHED);
+    public static final CsvRowWriterFactory PER_ROW = new CsvRowWriterFactory(Durability.PER_ROW);
+
+    private final Durability durability;
+
+    public CsvRowWriterFactory(Durability durability) {
+        this.durability = durability;
+    }
+
+    @Override
+    public RowWriter open(File fakeOutput, String name, List<Object> header) {
+        File file = RowWriterFactory.getFile(fakeOutput, name);
+        file.getParentFile().mkdirs();
+        CSVWriter writer = newCsvWriter(file);
+        write(writer, header);
+        return new RowWriter() {
+            @Override
+            public void write(Object[] row) {
+                CsvUtils.write(writer, row);
+                if (durability == Durability.PER_ROW) {
+                    writer.flushQuietly();
+                }
+            }
+
+            @Override
+            public void close() {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace(); // no biggie
+                }
+            }
+        };
+    }
+
+}
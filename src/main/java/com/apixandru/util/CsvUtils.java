@@ -1,13 +1,17 @@
 package com.apixandru.util;
 
+import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 public final class CsvUtils {
 
@@ -15,16 +19,27 @@ public final class CsvUtils {
     }
 
     public static void write(CSVWriter writer, Object... args) {
-        write(writer, Arrays.asList(args));
+        String[] stringArgs = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            stringArgs[i] = args[i] == null ? "" : args[i].toString();
+        }
+        writer.writeNext(stringArgs);
     }
 
     public static void write(CSVWriter writer, List<Object> args) {
-        String[] stringArgs = args.stream()
-                .map(e -> e == null ? "" : e.toString())
-                .toArray(String[]::new);
+        write(writer, args.toArray());
+    }
 
-        writer.writeNext(stringArgs);
-        writer.flushQuietly();
+    public static void read(File file, Consumer<String[]> rowConsumer) {
+        try (CSVReader reader = new CSVReader(new BufferedReader(new FileReader(file)))) {
+            reader.readNext(); // header
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                rowConsumer.accept(row);
+            }
+        } catch (IOException | CsvValidationException ex) {
+            throw new IllegalStateException(ex);
+        }
     }
 
     public static CSVWriter newCsvWriter(File file) {
@@ -0,0 +1,15 @@
+package com.apixandru.util;
+
+public enum Durability {
+
+    /**
+     * Rows are flushed when the buffer fills up or when the report is closed.
+     */
+    BATCHED,
+
+    /**
+     * Every row is flushed as soon as it is written.
+     */
+    PER_ROW
+
+}
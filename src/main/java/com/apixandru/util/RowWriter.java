@@ -0,0 +1,16 @@
+package com.apixandru.util;
+
+import java.io.Closeable;
+
+public interface RowWriter extends Closeable {
+
+    /**
+     * Cells are either numbers, strings or {@link Symbol symbols}, anything else is turned into a string by the
+     * caller.
+     */
+    void write(Object[] row);
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,18 @@
+package com.apixandru.util;
+
+import java.io.File;
+import java.util.List;
+
+public interface RowWriterFactory {
+
+    static File getFile(File fakeOutput, String name) {
+        return new File(fakeOutput.getAbsolutePath() + "." + name + ".csv");
+    }
+
+    /**
+     * @param fakeOutput the path of the source file mirrored in the output directory
+     * @param name       which of the reports of that file, {@code lines} or {@code lines.errors} for instance
+     */
+    RowWriter open(File fakeOutput, String name, List<Object> header);
+
+}
@@ -0,0 +1,143 @@
+package com.apixandru.util;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes every report of a kind, for the whole library, into a handful of shared files instead of one file per
+ * source file. Rows get the path of their source file as first column and are appended to the shard of the
+ * writing thread, so worker threads rarely wait on each other. Threads are given shards in turn the first time they
+ * write, thread ids need not be consecutive and would leave some shards shared and others unused. Shards are
+ * truncated when first opened in a run.
+ */
+public class ShardedCsvRowWriterFactory implements RowWriterFactory, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path targetDir;
+    private final int shardCount;
+    private final Durability durability;
+
+    private final Map<String, Shard[]> shardsByName = new ConcurrentHashMap<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ThreadLocal<Integer> shardOfThread = ThreadLocal.withInitial(this::nextShard);
+
+    public ShardedCsvRowWriterFactory(String targetDir, int shardCount, Durability durability) {
+        this.targetDir = new File(targetDir).toPath().toAbsolutePath();
+        this.shardCount = shardCount;
+        this.durability = durability;
+    }
+
+    private int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    @Override
+    public RowWriter open(File fakeOutput, String name, List<Object> header) {
+        Shard[] shards = shardsByName.computeIfAbsent(name, key -> createShards(key, header));
+        String source = targetDir.relativize(fakeOutput.toPath().toAbsolutePath()).toString();
+        return new RowWriter() {
+            @Override
+            public void write(Object[] row) {
+                Object[] sourceRow = new Object[row.length + 1];
+                sourceRow[0] = source;
+                System.arraycopy(row, 0, sourceRow, 1, row.length);
+                shards[shardOfThread.get()].write(sourceRow);
+            }
+
+            @Override
+            public void close() {
+                // shards stay open until the whole library is written
+            }
+        };
+    }
+
+    private Shard[] createShards(String name, List<Object> header) {
+        List<Object> shardHeader = new ArrayList<>();
+        shardHeader.add("source");
+        shardHeader.addAll(header);
+
+        Shard[] shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            File file = targetDir.resolve(name + "." + i + ".csv").toFile();
+            shards[i] = new Shard(file, shardHeader);
+        }
+        return shards;
+    }
+
+    public List<File> getFiles() {
+        List<File> files = new ArrayList<>();
+        for (Shard[] shards : shardsByName.values()) {
+            for (Shard shard : shards) {
+                files.add(shard.file);
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public void close() {
+        for (Shard[] shards : shardsByName.values()) {
+            for (Shard shard : shards) {
+                shard.close();
+            }
+        }
+    }
+
+    private final class Shard {
+
+        private final File file;
+        private final List<Object> header;
+
+        private CSVWriter writer;
+
+        Shard(File file, List<Object> header) {
+            this.file = file;
+            this.header = header;
+        }
+
+        synchronized void write(Object[] row) {
+            if (writer == null) {
+                file.getParentFile().mkdirs();
+                writer = newWriter();
+                CsvUtils.write(writer, header);
+            }
+            CsvUtils.write(writer, row);
+            if (durability == Durability.PER_ROW) {
+                writer.flushQuietly();
+            }
+        }
+
+        private CSVWriter newWriter() {
+            try {
+                return new CSVWriter(new BufferedWriter(new FileWriter(file), BUFFER_SIZE));
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        synchronized void close() {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace(); // no biggie
+            }
+        }
+
+    }
+
+}
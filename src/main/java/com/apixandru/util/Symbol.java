@@ -0,0 +1,26 @@
+package com.apixandru.util;
+
+/**
+ * A name handed out by {@link SymbolTable}. There is a single symbol per name in a run, so symbols compare by
+ * identity or by id, and writing one as a cell writes its name.
+ */
+public final class Symbol {
+
+    private final int id;
+    private final String name;
+
+    Symbol(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.apixandru.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers the type names and method signatures of a run from 0 up, from any number of threads. A name is stored
+ * once however many rows and caches hold on to it.
+ * <p>
+ * The table only lives as long as the run, the collector clears it once the reports of a library are written, so
+ * ids are not to be kept past that. What outlives a run, the indexes of the libraries depended on for instance, keeps
+ * names rather than ids. A symbol still prints its name after the table was cleared, it only no longer matches the
+ * symbols of the next run. An incremental analysis never clears it, its units keep their symbols across updates.
+ */
+public final class SymbolTable {
+
+    public static final SymbolTable INSTANCE = new SymbolTable();
+
+    private final Map<String, Symbol> symbols = new ConcurrentHashMap<>();
+
+    private int size;
+
+    private SymbolTable() {
+    }
+
+    public Symbol symbol(String name) {
+        Symbol symbol = symbols.get(name);
+        if (symbol != null) {
+            return symbol;
+        }
+        synchronized (this) {
+            return symbols.computeIfAbsent(name, key -> new Symbol(size++, key));
+        }
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    /**
+     * Forgets every name, only once nothing is being looked up or added any more.
+     */
+    public synchronized void clear() {
+        symbols.clear();
+        size = 0;
+    }
+
+}
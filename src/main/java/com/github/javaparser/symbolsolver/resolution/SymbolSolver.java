@@ -80,17 +80,27 @@ public class SymbolSolver {
 
             // FIXME should call typesolver here!
 
-            String name = ((ClassOrInterfaceType) type).getNameWithScope();
-            SymbolReference<? extends ResolvedTypeDeclaration> ref = JavaParserFactory.getContext(type, typeSolver).solveType(name);
-            if (!ref.isSolved()) {
-                throw new UnsolvedSymbolException(JavaParserFactory.getContext(type, typeSolver).toString(), name);
-            }
-            return ref.getCorrespondingDeclaration();
+            ClassOrInterfaceType classOrInterfaceType = (ClassOrInterfaceType) type;
+            return tryToSolveType(classOrInterfaceType)
+                    .orElseThrow(() -> new UnsolvedSymbolException(JavaParserFactory.getContext(type, typeSolver).toString(),
+                            classOrInterfaceType.getNameWithScope()));
         } else {
             throw new UnsupportedOperationException(type.getClass().getCanonicalName());
         }
     }
 
+    /**
+     * Same as {@link #solveType(Type)}, but a type that cannot be solved is reported as empty instead of as an
+     * exception, which is much cheaper when most of the misses are expected.
+     */
+    public Optional<ResolvedTypeDeclaration> tryToSolveType(ClassOrInterfaceType type) {
+        SymbolReference<? extends ResolvedTypeDeclaration> ref = solveType(type.getNameWithScope(), type);
+        if (!ref.isSolved()) {
+            return Optional.empty();
+        }
+        return Optional.of(ref.getCorrespondingDeclaration());
+    }
+
     public ResolvedType solveTypeUsage(String name, Context context) {
         Optional<ResolvedType> genericType = context.solveGenericType(name);
         if (genericType.isPresent()) {
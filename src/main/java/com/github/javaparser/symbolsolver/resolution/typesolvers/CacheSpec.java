@@ -0,0 +1,61 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+
+/**
+ * How one of the caches of a {@link ParsedTypeSolver} is bounded. Statistics are always recorded.
+ */
+public final class CacheSpec {
+
+    private static final long UNSET = -1;
+
+    public static final CacheSpec UNBOUNDED = new CacheSpec(UNSET, null, false);
+
+    private final long maximumSize;
+    private final Duration expireAfterAccess;
+    private final boolean softValues;
+
+    private CacheSpec(long maximumSize, Duration expireAfterAccess, boolean softValues) {
+        this.maximumSize = maximumSize;
+        this.expireAfterAccess = expireAfterAccess;
+        this.softValues = softValues;
+    }
+
+    public static CacheSpec maximumSize(long maximumSize) {
+        return new CacheSpec(maximumSize, null, false);
+    }
+
+    public CacheSpec expireAfterAccess(Duration expireAfterAccess) {
+        return new CacheSpec(maximumSize, expireAfterAccess, softValues);
+    }
+
+    /**
+     * Lets the garbage collector clear entries under memory pressure, all of them at once usually.
+     */
+    public CacheSpec softValues() {
+        return new CacheSpec(maximumSize, expireAfterAccess, true);
+    }
+
+    <K, V> Cache<K, V> build() {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        if (maximumSize != UNSET) {
+            builder.maximumSize(maximumSize);
+        }
+        if (softValues) {
+            builder.softValues();
+        }
+        if (expireAfterAccess != null) {
+            builder.expireAfterAccess(expireAfterAccess);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheSpec{maximumSize=" + maximumSize + ", expireAfterAccess=" + expireAfterAccess + ", softValues=" + softValues + '}';
+    }
+
+}
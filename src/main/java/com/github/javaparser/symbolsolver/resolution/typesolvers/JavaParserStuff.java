@@ -3,7 +3,9 @@ package com.github.javaparser.symbolsolver.resolution.typesolvers;
 import com.github.javaparser.ast.CompilationUnit;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface JavaParserStuff {
 
@@ -11,4 +13,17 @@ public interface JavaParserStuff {
 
     Optional<CompilationUnit> findCompilationUnitByTypeName(String typeName);
 
+    /**
+     * The fully qualified names of all the top level types that can be found.
+     */
+    Collection<String> getTypeNames();
+
+    /**
+     * Registers a listener told the fully qualified names of the top level types of every compilation unit that is
+     * dropped, so whatever was cached for those types can be dropped as well. Units that are kept for good are never
+     * dropped, which is what the default assumes.
+     */
+    default void onEvicted(Consumer<Collection<String>> listener) {
+    }
+
 }
@@ -4,6 +4,7 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.TypeDeclaration;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +41,7 @@ public class JavaParserStuffImpl implements JavaParserStuff {
 
     @Override
     public Optional<CompilationUnit> findCompilationUnit(Path srcFile) {
-        CompilationUnit compilationUnit = compilationUnits.get(srcFile.toAbsolutePath().toFile().getAbsolutePath());
+        CompilationUnit compilationUnit = compilationUnits.get(TypeIndex.toKey(srcFile));
         return Optional.ofNullable(compilationUnit);
     }
 
@@ -48,7 +49,11 @@ public class JavaParserStuffImpl implements JavaParserStuff {
     public Optional<CompilationUnit> findCompilationUnitByTypeName(String typeName) {
         CompilationUnit compilationUnit = compilationUnitsForTypes.get(typeName);
         return Optional.ofNullable(compilationUnit);
+    }
 
+    @Override
+    public Collection<String> getTypeNames() {
+        return compilationUnitsForTypes.keySet();
     }
 
 }
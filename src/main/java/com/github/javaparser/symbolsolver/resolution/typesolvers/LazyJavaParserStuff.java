@@ -0,0 +1,196 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import com.apixandru.java.metrics.GcSnapshot;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps only a {@link TypeIndex} in memory and parses compilation units when they are asked for.
+ * Parsed units are kept in a least recently used cache bounded by a number of units, so the memory needed is set by
+ * the limits rather than by the size of the library.
+ * <p>
+ * The bound starts at {@code maxUnits} and is halved whenever the heap still in use after a garbage collection is
+ * above {@code maxHeapRatio} of the maximum heap, then grows back a little after every collection that leaves enough
+ * room. The heap is only looked at once per collection, live and garbage units look the same until then, so a full
+ * but collectable heap does not empty the cache on every load.
+ * <p>
+ * The solvers are told the types of every unit evicted, so their caches do not keep it reachable. When the heap is
+ * too full the caches of the {@link JavaParserFacade}s, which hold the type of every node they were asked about, are
+ * dropped as well.
+ */
+public class LazyJavaParserStuff implements JavaParserStuff {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyJavaParserStuff.class);
+
+    private final TypeIndex index;
+    private final Function<Path, CompilationUnit> loader;
+    private final int maxUnits;
+    private final double maxHeapRatio;
+
+    private final Map<String, CompilationUnit> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Consumer<Collection<String>>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    private int unitLimit;
+    private long lastGcCount = -1;
+
+    private long loads;
+    private long evictions;
+    private long shrinks;
+
+    /**
+     * @param maxUnits     maximum number of compilation units kept parsed
+     * @param maxHeapRatio share of the maximum heap still in use after a collection above which fewer units are kept,
+     *                     between 0 and 1
+     */
+    public LazyJavaParserStuff(TypeIndex index, Function<Path, CompilationUnit> loader, int maxUnits, double maxHeapRatio) {
+        if (maxUnits < 1 || maxHeapRatio <= 0 || maxHeapRatio > 1) {
+            throw new IllegalArgumentException("Invalid limits: " + maxUnits + " units, " + maxHeapRatio + " heap ratio");
+        }
+        this.index = index;
+        this.loader = loader;
+        this.maxUnits = maxUnits;
+        this.maxHeapRatio = maxHeapRatio;
+        this.unitLimit = maxUnits;
+    }
+
+    @Override
+    public Optional<CompilationUnit> findCompilationUnit(Path srcFile) {
+        if (!index.contains(srcFile)) {
+            return Optional.empty();
+        }
+        return Optional.of(load(TypeIndex.toKey(srcFile)));
+    }
+
+    @Override
+    public Optional<CompilationUnit> findCompilationUnitByTypeName(String typeName) {
+        return index.findFile(typeName)
+                .map(this::load);
+    }
+
+    @Override
+    public Collection<String> getTypeNames() {
+        return index.getTypeNames();
+    }
+
+    @Override
+    public void onEvicted(Consumer<Collection<String>> listener) {
+        evictionListeners.add(listener);
+    }
+
+    private CompilationUnit load(String filePath) {
+        synchronized (loaded) {
+            CompilationUnit compilationUnit = loaded.get(filePath);
+            if (compilationUnit != null) {
+                return compilationUnit;
+            }
+        }
+        // parse outside the lock, two threads may race on the same file but only one result is kept
+        CompilationUnit compilationUnit = loader.apply(TypeIndex.toPath(filePath));
+        List<CompilationUnit> evicted;
+        boolean underPressure;
+        synchronized (loaded) {
+            CompilationUnit existing = loaded.putIfAbsent(filePath, compilationUnit);
+            if (existing != null) {
+                return existing;
+            }
+            loads++;
+            underPressure = adjustLimit();
+            evicted = evict();
+        }
+        if (underPressure) {
+            clearFacades();
+        }
+        notifyEvicted(evicted);
+        return compilationUnit;
+    }
+
+    /**
+     * Looks at the heap once per garbage collection, the only time what it holds says something about what is live.
+     *
+     * @return whether the heap was found too full
+     */
+    private boolean adjustLimit() {
+        GcSnapshot gc = GcSnapshot.take();
+        if (gc.getCollections() == lastGcCount) {
+            return false;
+        }
+        lastGcCount = gc.getCollections();
+        if (gc.getUsedAfterGc() > Runtime.getRuntime().maxMemory() * maxHeapRatio) {
+            unitLimit = Math.max(1, Math.min(unitLimit, loaded.size()) / 2);
+            shrinks++;
+            log.debug("Heap above {} after a collection, keeping at most {} units parsed", maxHeapRatio, unitLimit);
+            return true;
+        }
+        unitLimit = Math.min(maxUnits, unitLimit + Math.max(1, unitLimit / 8));
+        return false;
+    }
+
+    private List<CompilationUnit> evict() {
+        List<CompilationUnit> evicted = new ArrayList<>();
+        Iterator<CompilationUnit> eldest = loaded.values().iterator();
+        while (loaded.size() > unitLimit) {
+            evicted.add(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+        return evicted;
+    }
+
+    private void notifyEvicted(List<CompilationUnit> evicted) {
+        if (evicted.isEmpty() || evictionListeners.isEmpty()) {
+            return;
+        }
+        for (CompilationUnit compilationUnit : evicted) {
+            List<String> typeNames = TypeIndex.getTypeNames(compilationUnit);
+            for (Consumer<Collection<String>> listener : evictionListeners) {
+                listener.accept(typeNames);
+            }
+        }
+    }
+
+    /**
+     * {@link JavaParserFacade#get} holds the same lock while it looks up or creates a facade, the threads asking for
+     * one afterwards get a new, empty one.
+     */
+    private static void clearFacades() {
+        synchronized (JavaParserFacade.class) {
+            JavaParserFacade.clearInstances();
+        }
+    }
+
+    public void invalidate(String filePath) {
+        CompilationUnit removed;
+        synchronized (loaded) {
+            removed = loaded.remove(filePath);
+        }
+        if (removed != null) {
+            notifyEvicted(List.of(removed));
+        }
+    }
+
+    public TypeIndex getIndex() {
+        return index;
+    }
+
+    public void logStats() {
+        synchronized (loaded) {
+            log.info("{} units loaded, {} evicted, {} still parsed out of {} indexed, bound {} of {} after {} shrinks",
+                    loads, evictions, loaded.size(), index.size(), unitLimit, maxUnits, shrinks);
+        }
+    }
+
+}
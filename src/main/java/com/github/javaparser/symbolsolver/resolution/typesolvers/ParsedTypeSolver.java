@@ -23,230 +23,186 @@ package com.github.javaparser.symbolsolver.resolution.typesolvers;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
-import com.github.javaparser.symbolsolver.cache.Cache;
-import com.github.javaparser.symbolsolver.cache.GuavaCache;
 import com.github.javaparser.symbolsolver.javaparser.Navigator;
 import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
 import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
 import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
-import com.github.javaparser.symbolsolver.utils.FileUtils;
-import com.google.common.cache.CacheBuilder;
-
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-
-import static java.util.stream.Collectors.toList;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the types of the compilation units {@link JavaParserStuff} knows about through a {@link TypeTrie} of their
+ * names, without probing the file system. Types declared in a file not named after them are found as well, since the
+ * names come from the parsed units rather than from the file names.
+ */
 public class ParsedTypeSolver implements TypeSolver {
 
-    private static final int CACHE_SIZE_UNSET = -1;
+    private static final Logger log = LoggerFactory.getLogger(ParsedTypeSolver.class);
+
+    static final String FOUND_TYPES = "foundTypes";
 
     private final JavaParserFacade javaParserFacade = JavaParserFacade.get(this);
 
-    private final List<Path> srcDirs;
     private final JavaParserStuff javaParser;
-    private final Cache<Path, Optional<CompilationUnit>> parsedFiles;
-    private final Cache<Path, List<CompilationUnit>> parsedDirectories;
     private final Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> foundTypes;
+    private final TypeSolverCacheConfig cacheConfig;
 
-    private TypeSolver parent;
+    private volatile TypeTrie typeTrie;
 
-    public ParsedTypeSolver(List<File> srcDir, JavaParserStuff parserConfiguration) {
-        this(toPaths(srcDir), parserConfiguration, CACHE_SIZE_UNSET);
-    }
+    private TypeSolver parent;
 
-    public ParsedTypeSolver(List<Path> srcDirs, JavaParserStuff jps, long cacheSizeLimit) {
-        for (Path srcDir : srcDirs) {
-            if (!Files.exists(srcDir) || !Files.isDirectory(srcDir)) {
-                throw new IllegalStateException("SrcDir does not exist or is not a directory: " + srcDir);
-            }
-        }
-        this.srcDirs = srcDirs;
-        parsedFiles = buildCache(cacheSizeLimit);
-        parsedDirectories = buildCache(cacheSizeLimit);
-        foundTypes = buildCache(cacheSizeLimit);
+    private ParsedTypeSolver(JavaParserStuff jps, TypeTrie typeTrie, TypeSolverCacheConfig cacheConfig) {
         javaParser = jps;
+        this.typeTrie = typeTrie;
+        foundTypes = cacheConfig.getFoundTypes().build();
+        this.cacheConfig = cacheConfig;
     }
 
-    private static List<Path> toPaths(List<File> srcDir) {
-        return srcDir.stream()
-                .map(File::toPath)
-                .collect(toList());
+    public static ParsedTypeSolver inMemory(JavaParserStuff jps, TypeSolverCacheConfig cacheConfig) {
+        return inMemory(jps, TypeTrie.of(jps.getTypeNames()), cacheConfig);
     }
 
-    private <TKey, TValue> Cache<TKey, TValue> buildCache(long cacheSizeLimit) {
-        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().softValues();
-        if (cacheSizeLimit != CACHE_SIZE_UNSET) {
-            cacheBuilder.maximumSize(cacheSizeLimit);
-        }
-        return new GuavaCache<>(cacheBuilder.build());
+    /**
+     * @param typeTrie the type names of {@code jps}, only read so it can be shared with other solvers
+     */
+    public static ParsedTypeSolver inMemory(JavaParserStuff jps, TypeTrie typeTrie, TypeSolverCacheConfig cacheConfig) {
+        return new ParsedTypeSolver(jps, typeTrie, cacheConfig);
     }
 
-    @Override
-    public TypeSolver getParent() {
-        return parent;
+    public static ParsedTypeSolver inMemory(JavaParserStuff jps) {
+        return inMemory(jps, TypeSolverCacheConfig.UNBOUNDED);
     }
 
-    @Override
-    public void setParent(TypeSolver parent) {
-        Objects.requireNonNull(parent);
-        if (this.parent != null) {
-            throw new IllegalStateException("This TypeSolver already has a parent.");
-        }
-        if (parent == this) {
-            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    /**
+     * Loads through the cache so that misses and load times are recorded, and concurrent loads of a key are shared.
+     */
+    private static <K, V> V get(Cache<K, V> cache, K key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new IllegalStateException(ex.getCause());
         }
-        this.parent = parent;
     }
 
-    private Optional<CompilationUnit> parse(Path srcFile) {
-        try {
-            Optional<Optional<CompilationUnit>> cachedParsedFile = parsedFiles.get(srcFile.toAbsolutePath());
-            // If the value is already cached
-            if (cachedParsedFile.isPresent()) {
-                return cachedParsedFile.get();
-            }
+    public TypeSolverCacheConfig getCacheConfig() {
+        return cacheConfig;
+    }
 
-            // Otherwise load it
-            if (!Files.exists(srcFile) || !Files.isRegularFile(srcFile)) {
-                parsedFiles.put(srcFile.toAbsolutePath(), Optional.empty());
-                return Optional.empty();
-            }
+    /**
+     * Hits, misses, evictions and load times of the found types cache.
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put(FOUND_TYPES, foundTypes.stats());
+        return stats;
+    }
 
-            return getCompilationUnit(srcFile);
-        } catch (IOException e) {
-            throw new RuntimeException("Issue while parsing while type solving: " + srcFile.toAbsolutePath(), e);
-        }
+    public Map<String, Long> getCacheSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        sizes.put(FOUND_TYPES, foundTypes.size());
+        return sizes;
+    }
+
+    public void logCacheStats() {
+        logCacheStats(getCacheStats(), getCacheSizes());
     }
 
-    private Optional<CompilationUnit> getCompilationUnit(Path srcFile) throws IOException {
-        Optional<CompilationUnit> compilationUnit = javaParser.findCompilationUnit(srcFile);
-        parsedFiles.put(srcFile.toAbsolutePath(), compilationUnit);
-        return compilationUnit;
+    static void logCacheStats(Map<String, CacheStats> cacheStats, Map<String, Long> sizes) {
+        cacheStats.forEach((name, stats) -> log.info("{}: {} entries, {} hits, {} misses, {}% hit rate, {} evictions, {} ms average load",
+                name, sizes.get(name), stats.hitCount(), stats.missCount(), Math.round(stats.hitRate() * 100),
+                stats.evictionCount(), TimeUnit.NANOSECONDS.toMillis((long) stats.averageLoadPenalty())));
     }
 
     /**
-     * Note that this parse only files directly contained in this directory.
-     * It does not traverse recursively all children directory.
+     * Forgets everything solved so far, for when the underlying sources changed.
      */
-    private List<CompilationUnit> parseDirectory(Path srcDirectory) {
-        return parseDirectory(srcDirectory, false);
+    public void invalidate() {
+        invalidate(TypeTrie.of(javaParser.getTypeNames()));
     }
 
-    private List<CompilationUnit> parseDirectoryRecursively(Path srcDirectory) {
-        return parseDirectory(srcDirectory, true);
+    /**
+     * Same as {@link #invalidate()}, with the new type names already in a trie that may be shared.
+     */
+    public void invalidate(TypeTrie typeTrie) {
+        foundTypes.invalidateAll();
+        this.typeTrie = typeTrie;
     }
 
-    private List<CompilationUnit> parseDirectory(Path srcDirectory, boolean recursively) {
-        try {
-            Optional<List<CompilationUnit>> cachedValue = parsedDirectories.get(srcDirectory.toAbsolutePath());
-            if (cachedValue.isPresent()) {
-                return cachedValue.get();
-            }
+    /**
+     * Forgets the types declared in a compilation unit that is no longer kept parsed, their nested types included, so
+     * the declarations cached for them stop keeping its nodes reachable.
+     */
+    public void forget(Collection<String> typeNames) {
+        foundTypes.asMap().keySet().removeIf(name -> isDeclaredBy(typeNames, name));
+    }
 
-            // If not cached, we need to load it
-            List<CompilationUnit> units = new ArrayList<>();
-            if (Files.exists(srcDirectory)) {
-                try (DirectoryStream<Path> srcDirectoryStream = Files.newDirectoryStream(srcDirectory)) {
-                    srcDirectoryStream.forEach(file -> parse(recursively, units, file));
-                }
+    private static boolean isDeclaredBy(Collection<String> typeNames, String name) {
+        for (String typeName : typeNames) {
+            if (name.startsWith(typeName) && (name.length() == typeName.length() || name.charAt(typeName.length()) == '.')) {
+                return true;
             }
-            parsedDirectories.put(srcDirectory.toAbsolutePath(), units);
-            return units;
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to parse directory due to an exception. Directory:" + srcDirectory.toAbsolutePath(), e);
         }
+        return false;
+    }
 
+    @Override
+    public TypeSolver getParent() {
+        return parent;
     }
 
-    private void parse(boolean recursively, List<CompilationUnit> units, Path file) {
-        if (file.getFileName().toString().toLowerCase().endsWith(".java")) {
-            parse(file).ifPresent(units::add);
-        } else if (recursively && file.toFile().isDirectory()) {
-            units.addAll(parseDirectoryRecursively(file));
+    @Override
+    public void setParent(TypeSolver parent) {
+        Objects.requireNonNull(parent);
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
         }
+        this.parent = parent;
     }
 
     @Override
     public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
-        return foundTypes.get(name)
-                .orElseGet(() -> trySolveAndCache(name));
-    }
-
-    private SymbolReference<ResolvedReferenceTypeDeclaration> trySolveAndCache(String name) {
-        SymbolReference<ResolvedReferenceTypeDeclaration> result = tryToSolveTypeUncached(name);
-        foundTypes.put(name, result);
-        return result;
+        return get(foundTypes, name, () -> tryToSolveTypeUncached(name));
     }
 
     private SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveTypeUncached(String name) {
-        String[] nameElements = name.split("\\.");
-
-        for (Path srcDir : srcDirs) {
-            SymbolReference<ResolvedReferenceTypeDeclaration> type = resolving(nameElements, srcDir);
-            if (type != null) {
-                return type;
-            }
-        }
-
-        return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
-    }
-
-    private SymbolReference<ResolvedReferenceTypeDeclaration> resolving(String[] nameElements, Path srcDir) {
-        for (int i = nameElements.length; i > 0; i--) {
-            StringBuilder filePath = new StringBuilder(srcDir.toAbsolutePath().toString());
-            for (int j = 0; j < i; j++) {
-                filePath.append(File.separator)
-                        .append(nameElements[j]);
-            }
-            filePath.append(".java");
-
-            StringBuilder typeName = new StringBuilder();
-            for (int j = i - 1; j < nameElements.length; j++) {
-                if (j != i - 1) {
-                    typeName.append(".");
-                }
-                typeName.append(nameElements[j]);
-            }
-
-            String dirToParse = null;
-            // As an optimization we first try to look in the canonical position where we expect to find the file
-            if (FileUtils.isValidPath(filePath.toString())) {
-                Path srcFile = Paths.get(filePath.toString());
-                Optional<CompilationUnit> optionalCompilationUnit = parse(srcFile);
-                if (optionalCompilationUnit.isPresent()) {
-                    CompilationUnit compilationUnit = optionalCompilationUnit.get();
-                    SymbolReference<ResolvedReferenceTypeDeclaration> type = findType(compilationUnit, typeName.toString());
-                    if (type != null) {
-                        return type;
-                    }
-                }
-                dirToParse = srcFile.getParent().normalize().toString();
-            } else {
-                dirToParse = FileUtils.getParentPath(filePath.toString());
-            }
-
-            // If this is not possible we parse all files
-            // We try just in the same package, for classes defined in a file not named as the class itself
-            if (FileUtils.isValidPath(dirToParse)) {
-                List<CompilationUnit> compilationUnits = parseDirectory(Paths.get(dirToParse));
-                for (CompilationUnit compilationUnit : compilationUnits) {
-                    SymbolReference<ResolvedReferenceTypeDeclaration> type = findType(compilationUnit, typeName.toString());
-                    if (type != null) {
-                        return type;
-                    }
+        return resolvingInTrie(name.split("\\."), typeTrie);
+    }
+
+    private SymbolReference<ResolvedReferenceTypeDeclaration> resolvingInTrie(String[] nameElements, TypeTrie trie) {
+        int from = 0;
+        Optional<TypeTrie.Match> match;
+        while ((match = trie.find(nameElements, from)).isPresent()) {
+            int end = match.get().getEnd();
+            Optional<CompilationUnit> compilationUnit = javaParser.findCompilationUnitByTypeName(match.get().getTypeName());
+            if (compilationUnit.isPresent()) {
+                // the simple name of the top level type followed by the nested ones, as Navigator expects it
+                String typeName = String.join(".", Arrays.asList(nameElements).subList(end - 1, nameElements.length));
+                SymbolReference<ResolvedReferenceTypeDeclaration> type = findType(compilationUnit.get(), typeName);
+                if (type != null) {
+                    return type;
                 }
             }
+            from = end;
         }
-        return null;
+        return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
     }
 
     private SymbolReference<ResolvedReferenceTypeDeclaration> findType(CompilationUnit compilationUnit, String typeName) {
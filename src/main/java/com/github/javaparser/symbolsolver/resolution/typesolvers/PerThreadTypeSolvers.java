@@ -0,0 +1,213 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.google.common.cache.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every thread its own {@link ParsedTypeSolver}, so its own {@code JavaParserFacade} and caches, none of which
+ * were written to be shared. What the solvers have in common, the units and the {@link TypeTrie} of their type
+ * names, is only ever read, so resolving on one thread never waits for another one.
+ * <p>
+ * Types not found among the units are looked up in the dependencies, the JDK for instance, through the solver the
+ * dependency gives the calling thread. A dependency may be shared by any number of libraries, its units and the
+ * caches of its solvers staying warm from one library to the next.
+ * <p>
+ * The solvers of threads that died, the workers of a pool that timed out for instance, are dropped the next time a
+ * solver is created or the statistics are read, their cache statistics are kept in the totals. The solvers of the
+ * threads still alive are only dropped by {@link #close()}, a pool kept for the next library would keep them
+ * otherwise, and the units they reach with them.
+ */
+public class PerThreadTypeSolvers {
+
+    private final JavaParserStuff jps;
+    private final TypeSolverCacheConfig cacheConfig;
+    private final List<PerThreadTypeSolvers> dependencies;
+    private final Map<Thread, ThreadSolvers> solvers = new ConcurrentHashMap<>();
+    private final Map<String, CacheStats> retiredStats = new LinkedHashMap<>();
+
+    private volatile TypeTrie typeTrie;
+
+    public PerThreadTypeSolvers(JavaParserStuff jps, TypeSolverCacheConfig cacheConfig) {
+        this(jps, cacheConfig, List.of());
+    }
+
+    public PerThreadTypeSolvers(JavaParserStuff jps, TypeSolverCacheConfig cacheConfig, List<PerThreadTypeSolvers> dependencies) {
+        this.jps = jps;
+        this.cacheConfig = cacheConfig;
+        this.dependencies = List.copyOf(dependencies);
+        this.typeTrie = TypeTrie.of(jps.getTypeNames());
+        jps.onEvicted(this::forget);
+    }
+
+    private ThreadSolvers create() {
+        ParsedTypeSolver typeSolver = ParsedTypeSolver.inMemory(jps, typeTrie, cacheConfig);
+        retireDeadThreads();
+        if (dependencies.isEmpty()) {
+            return new ThreadSolvers(typeSolver, typeSolver);
+        }
+        List<TypeSolver> elements = new ArrayList<>();
+        elements.add(typeSolver);
+        for (PerThreadTypeSolvers dependency : dependencies) {
+            elements.add(new DependencyTypeSolver(dependency));
+        }
+        return new ThreadSolvers(typeSolver, new CombinedTypeSolver(elements));
+    }
+
+    /**
+     * The solver of the calling thread. Only that thread ever adds its solver, so it is created outside of the map.
+     */
+    public TypeSolver get() {
+        Thread thread = Thread.currentThread();
+        ThreadSolvers threadSolvers = solvers.get(thread);
+        if (threadSolvers == null) {
+            threadSolvers = create();
+            solvers.put(thread, threadSolvers);
+        }
+        return threadSolvers.combined;
+    }
+
+    /**
+     * Drops the solvers of the threads that died, adding the statistics of their caches to the retired ones.
+     */
+    private synchronized void retireDeadThreads() {
+        solvers.entrySet().removeIf(entry -> {
+            if (entry.getKey().isAlive()) {
+                return false;
+            }
+            retire(entry.getValue());
+            return true;
+        });
+    }
+
+    private void retire(ThreadSolvers threadSolvers) {
+        threadSolvers.own.getCacheStats().forEach((name, stats) -> retiredStats.merge(name, stats, CacheStats::plus));
+    }
+
+    /**
+     * Drops the solvers of every thread, keeping the statistics of their caches in the totals. Solvers that resolve
+     * through these as a dependency keep their own.
+     */
+    public synchronized void close() {
+        solvers.values().forEach(this::retire);
+        solvers.clear();
+    }
+
+    public void invalidate() {
+        typeTrie = TypeTrie.of(jps.getTypeNames());
+        for (ThreadSolvers threadSolvers : solvers.values()) {
+            threadSolvers.own.invalidate(typeTrie);
+        }
+    }
+
+    private void forget(Collection<String> typeNames) {
+        for (ThreadSolvers threadSolvers : solvers.values()) {
+            threadSolvers.own.forget(typeNames);
+        }
+    }
+
+    /**
+     * The solvers of the threads still alive.
+     */
+    public int size() {
+        retireDeadThreads();
+        return solvers.size();
+    }
+
+    /**
+     * The statistics of the caches of all the threads, the ones that died included, summed up.
+     */
+    public synchronized Map<String, CacheStats> getCacheStats() {
+        retireDeadThreads();
+        Map<String, CacheStats> total = new LinkedHashMap<>(retiredStats);
+        for (ThreadSolvers threadSolvers : solvers.values()) {
+            threadSolvers.own.getCacheStats().forEach((name, stats) -> total.merge(name, stats, CacheStats::plus));
+        }
+        return total;
+    }
+
+    /**
+     * The statistics of the found types caches of all the threads, the only cache of solvers looking types up in
+     * memory, summed up.
+     */
+    public CacheStats getFoundTypesStats() {
+        return getCacheStats().getOrDefault(ParsedTypeSolver.FOUND_TYPES, new CacheStats(0, 0, 0, 0, 0, 0));
+    }
+
+    public long getFoundTypesSize() {
+        return getCacheSizes().getOrDefault(ParsedTypeSolver.FOUND_TYPES, 0L);
+    }
+
+    public Map<String, Long> getCacheSizes() {
+        Map<String, Long> total = new LinkedHashMap<>();
+        for (ThreadSolvers threadSolvers : solvers.values()) {
+            threadSolvers.own.getCacheSizes().forEach((name, size) -> total.merge(name, size, Long::sum));
+        }
+        return total;
+    }
+
+    public void logCacheStats() {
+        ParsedTypeSolver.logCacheStats(getCacheStats(), getCacheSizes());
+    }
+
+    /**
+     * The solver of a thread for the units of the library, and the one it resolves with, which falls back on the
+     * dependencies.
+     */
+    private static final class ThreadSolvers {
+
+        private final ParsedTypeSolver own;
+        private final TypeSolver combined;
+
+        ThreadSolvers(ParsedTypeSolver own, TypeSolver combined) {
+            this.own = own;
+            this.combined = combined;
+        }
+
+    }
+
+    /**
+     * Solves through the solver the dependency gives the calling thread. The types found keep resolving within the
+     * dependency, whichever library asked for them.
+     */
+    private static final class DependencyTypeSolver implements TypeSolver {
+
+        private final PerThreadTypeSolvers dependency;
+
+        private TypeSolver parent;
+
+        DependencyTypeSolver(PerThreadTypeSolvers dependency) {
+            this.dependency = dependency;
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return parent;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            Objects.requireNonNull(parent);
+            if (this.parent != null) {
+                throw new IllegalStateException("This TypeSolver already has a parent.");
+            }
+            this.parent = parent;
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            return dependency.get().tryToSolveType(name);
+        }
+
+    }
+
+}
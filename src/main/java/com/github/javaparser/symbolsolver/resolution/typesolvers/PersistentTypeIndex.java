@@ -0,0 +1,252 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The {@link TypeIndex} of a library saved between runs, along with the size, modification time and content hash
+ * of every indexed file. A file whose hash changed since it was indexed is reported as stale and must be parsed
+ * again; an index written by another format version or for another library is ignored as a whole, and so is an
+ * index that cannot be read, a partially written or corrupt one for instance.
+ */
+public class PersistentTypeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentTypeIndex.class);
+
+    private static final int MAGIC = 0x4A4D5449; // JMTI
+    private static final int VERSION = 1;
+    private static final int MIN_ENTRY_BYTES = Integer.BYTES + 3 * Long.BYTES + Integer.BYTES;
+
+    private final String libraryKey;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public PersistentTypeIndex(String libraryKey) {
+        this.libraryKey = libraryKey;
+    }
+
+    public static PersistentTypeIndex load(Path indexFile, String libraryKey) {
+        PersistentTypeIndex index = new PersistentTypeIndex(libraryKey);
+        if (!Files.isRegularFile(indexFile)) {
+            return index;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            // read rather than mapped, a mapped file cannot be replaced on Windows until the mapping is collected
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !libraryKey.equals(readString(buffer))) {
+                log.info("Ignoring {}, it was written by another version or for another library", indexFile);
+                return index;
+            }
+            int count = readCount(buffer, MIN_ENTRY_BYTES);
+            for (int i = 0; i < count; i++) {
+                Entry entry = readEntry(buffer);
+                index.entries.put(entry.file, entry);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Ignoring unreadable index {}", indexFile, ex);
+            index.entries.clear();
+            return index;
+        }
+        log.info("Loaded {} indexed files from {} in {} ms", index.entries.size(), indexFile, System.currentTimeMillis() - start);
+        return index;
+    }
+
+    public void save(Path indexFile) {
+        try {
+            Files.createDirectories(indexFile.toAbsolutePath().getParent());
+            Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                write(out);
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot save index " + indexFile, ex);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort((a, b) -> a.file.compareTo(b.file));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, libraryKey);
+        out.writeInt(sorted.size());
+        for (Entry entry : sorted) {
+            writeString(out, entry.file);
+            out.writeLong(entry.size);
+            out.writeLong(entry.lastModified);
+            out.writeLong(entry.hash);
+            out.writeInt(entry.typeNames.size());
+            for (String typeName : entry.typeNames) {
+                writeString(out, typeName);
+            }
+        }
+    }
+
+    /**
+     * Returns the entry of the file if it is still valid. The content is only hashed again when the size or the
+     * modification time changed, an entry whose hash still matches is refreshed with the new modification time.
+     */
+    public Optional<Entry> findUpToDate(Path file) {
+        Entry entry = entries.get(TypeIndex.toKey(file));
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            long size = Files.size(file);
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            if (size == entry.size && lastModified == entry.lastModified) {
+                return Optional.of(entry);
+            }
+            if (size == entry.size && hash(file) == entry.hash) {
+                Entry refreshed = new Entry(entry.file, size, lastModified, entry.hash, entry.typeNames);
+                entries.put(entry.file, refreshed);
+                return Optional.of(refreshed);
+            }
+        } catch (NoSuchFileException ex) {
+            // deleted, the entry is stale
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return Optional.empty();
+    }
+
+    public void put(Entry entry) {
+        entries.put(entry.file, entry);
+    }
+
+    public void remove(String file) {
+        entries.remove(file);
+    }
+
+    /**
+     * Drops the entries of the files that no longer exist.
+     */
+    public void retainAll(Set<String> files) {
+        entries.keySet().retainAll(files);
+    }
+
+    public Optional<Entry> get(String file) {
+        return Optional.ofNullable(entries.get(file));
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    public TypeIndex toTypeIndex() {
+        TypeIndex index = new TypeIndex();
+        for (Entry entry : entries.values()) {
+            index.add(entry.file, entry.typeNames);
+        }
+        return index;
+    }
+
+    public static long hash(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+
+    private static Entry readEntry(ByteBuffer buffer) {
+        String file = readString(buffer);
+        long size = buffer.getLong();
+        long lastModified = buffer.getLong();
+        long hash = buffer.getLong();
+        int typeCount = readCount(buffer, Integer.BYTES);
+        List<String> typeNames = new ArrayList<>(typeCount);
+        for (int i = 0; i < typeCount; i++) {
+            typeNames.add(readString(buffer));
+        }
+        return new Entry(file, size, lastModified, hash, typeNames);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * A count of items taking at least {@code minBytes} each, which cannot be more than what is left of the buffer.
+     */
+    private static int readCount(ByteBuffer buffer, int minBytes) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / minBytes) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static final class Entry {
+
+        private final String file;
+        private final long size;
+        private final long lastModified;
+        private final long hash;
+        private final List<String> typeNames;
+
+        Entry(String file, long size, long lastModified, long hash, List<String> typeNames) {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.typeNames = List.copyOf(typeNames);
+        }
+
+        /**
+         * @param lastModified taken before the content was read, a file changed while it was read is then hashed
+         *                     again the next time
+         * @param hash         the {@link CRC32C} of the content, see {@link #hash(Path)}
+         */
+        public static Entry of(Path path, long size, long lastModified, long hash, List<String> typeNames) {
+            return new Entry(TypeIndex.toKey(path), size, lastModified, hash, typeNames);
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public Path getPath() {
+            return TypeIndex.toPath(file);
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public List<String> getTypeNames() {
+            return typeNames;
+        }
+
+    }
+
+}
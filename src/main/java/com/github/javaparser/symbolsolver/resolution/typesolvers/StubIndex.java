@@ -0,0 +1,263 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import com.apixandru.java.visitors.JpUtils;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * What other libraries can see of a library, in a single zip file: every type with its supertypes, type parameters,
+ * fields and the signatures of its methods and constructors, but no bodies, initializers, comments or private members
+ * other than constructors. Private constructors are kept so that a type without others does not get a default one. The stubs are Java sources, so they resolve exactly like the sources they come from, and are parsed the
+ * first time one of their types is asked for. They are a fraction of the size of the sources and are kept parsed.
+ * <p>
+ * There is one entry per source file, under its package path, and {@value #TYPES_ENTRY}, which starts with
+ * {@value #HEADER} and the key of the library and then lists every top level type followed by a tab and its entry.
+ */
+public class StubIndex implements JavaParserStuff, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(StubIndex.class);
+
+    public static final String EXTENSION = ".stubs.zip";
+
+    static final String TYPES_ENTRY = "types.idx";
+    static final String HEADER = "# stubs v1 ";
+
+    private final Path file;
+    private final ZipFile zip;
+    private final String key;
+    private final Map<String, String> entriesByType;
+    private final ThreadLocal<JavaParser> parser;
+    private final Consumer<CompilationUnit> onParse;
+
+    private final Map<String, CompilationUnit> parsed = new ConcurrentHashMap<>();
+
+    private StubIndex(Path file, ZipFile zip, String key, Map<String, String> entriesByType,
+                      Supplier<JavaParser> parsers, Consumer<CompilationUnit> onParse) {
+        this.file = file;
+        this.zip = zip;
+        this.key = key;
+        this.entriesByType = entriesByType;
+        this.parser = ThreadLocal.withInitial(parsers);
+        this.onParse = onParse;
+    }
+
+    /**
+     * @param onParse called with every stub once parsed, to give it a symbol resolver for instance
+     */
+    public static StubIndex open(Path file, Supplier<JavaParser> parsers, Consumer<CompilationUnit> onParse) {
+        ZipFile zip = null;
+        try {
+            zip = new ZipFile(file.toFile());
+            ZipEntry types = zip.getEntry(TYPES_ENTRY);
+            if (types == null) {
+                throw new IllegalStateException(file + " is not a stub index");
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(types), UTF_8))) {
+                String header = reader.readLine();
+                if (header == null || !header.startsWith(HEADER)) {
+                    throw new IllegalStateException(file + " is not a stub index of this version");
+                }
+                Map<String, String> entriesByType = new HashMap<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab == -1) {
+                        throw new IllegalStateException(file + " lists a type without its stub: " + line);
+                    }
+                    entriesByType.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+                log.info("Opened {} stubs of {} types from {}", zip.size() - 1, entriesByType.size(), file);
+                return new StubIndex(file, zip, header.substring(HEADER.length()), entriesByType, parsers, onParse);
+            }
+        } catch (IOException ex) {
+            closeQuietly(zip);
+            throw new UncheckedIOException("Cannot open stub index " + file, ex);
+        } catch (RuntimeException ex) {
+            closeQuietly(zip);
+            throw ex;
+        }
+    }
+
+    private static void closeQuietly(ZipFile zip) {
+        if (zip == null) {
+            return;
+        }
+        try {
+            zip.close();
+        } catch (IOException ex) {
+            log.warn("Cannot close {}", zip.getName(), ex);
+        }
+    }
+
+    /**
+     * Written to a temporary file first, so an index is either whole or not there. Entries are sorted, the same
+     * sources always make the same file. Of several stubs for the same entry, the same file under two source roots
+     * for instance, the first one given is kept.
+     *
+     * @return the number of stubs written
+     */
+    public static int write(Path file, String key, Collection<Stub> stubs) {
+        List<Stub> sorted = new ArrayList<>();
+        Stub previous = null;
+        // a stable sort, stubs for the same entry stay in the order they were given
+        for (Stub stub : stubs.stream().sorted(Comparator.comparing(Stub::getEntry)).collect(toList())) {
+            if (previous != null && previous.entry.equals(stub.entry)) {
+                log.warn("{} has more than one stub, keeping the first one of {}", stub.entry, previous.typeNames);
+                continue;
+            }
+            sorted.add(stub);
+            previous = stub;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                StringBuilder types = new StringBuilder(HEADER).append(key).append('\n');
+                for (Stub stub : sorted) {
+                    out.putNextEntry(new ZipEntry(stub.entry));
+                    out.write(stub.source.getBytes(UTF_8));
+                    out.closeEntry();
+                    for (String typeName : stub.typeNames) {
+                        types.append(typeName).append('\t').append(stub.entry).append('\n');
+                    }
+                }
+                out.putNextEntry(new ZipEntry(TYPES_ENTRY));
+                out.write(types.toString().getBytes(UTF_8));
+                out.closeEntry();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write stub index " + file, ex);
+        }
+        return sorted.size();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Stubs are stored as if they were files below the index, {@code jdk.stubs.zip/java/util/List.java} for instance.
+     */
+    @Override
+    public Optional<CompilationUnit> findCompilationUnit(Path srcFile) {
+        if (!srcFile.startsWith(file)) {
+            return Optional.empty();
+        }
+        String entry = file.relativize(srcFile).toString().replace('\\', '/');
+        if (zip.getEntry(entry) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(load(entry));
+    }
+
+    @Override
+    public Optional<CompilationUnit> findCompilationUnitByTypeName(String typeName) {
+        return Optional.ofNullable(entriesByType.get(typeName))
+                .map(this::load);
+    }
+
+    @Override
+    public Collection<String> getTypeNames() {
+        return entriesByType.keySet();
+    }
+
+    private CompilationUnit load(String entry) {
+        CompilationUnit compilationUnit = parsed.get(entry);
+        if (compilationUnit != null) {
+            return compilationUnit;
+        }
+        // parse outside the lock of the map, two threads may race on the same stub but only one result is kept
+        compilationUnit = parse(entry);
+        CompilationUnit existing = parsed.putIfAbsent(entry, compilationUnit);
+        return existing != null ? existing : compilationUnit;
+    }
+
+    private CompilationUnit parse(String entry) {
+        try (InputStream in = zip.getInputStream(zip.getEntry(entry))) {
+            String source = new String(in.readAllBytes(), UTF_8);
+            CompilationUnit compilationUnit = JpUtils.parse(parser.get(), file.resolve(entry), Providers.provider(source));
+            onParse.accept(compilationUnit);
+            return compilationUnit;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read stub " + entry + " of " + file, ex);
+        }
+    }
+
+    public void logStats() {
+        log.info("{} stubs parsed out of {} types", parsed.size(), entriesByType.size());
+    }
+
+    @Override
+    public void close() {
+        try {
+            zip.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot close " + file, ex);
+        }
+    }
+
+    /**
+     * The stub of a single source file and the top level types it declares.
+     */
+    public static final class Stub {
+
+        private final String entry;
+        private final String source;
+        private final List<String> typeNames;
+
+        private Stub(String entry, String source, List<String> typeNames) {
+            this.entry = entry;
+            this.source = source;
+            this.typeNames = List.copyOf(typeNames);
+        }
+
+        public static Stub of(String entry, String source, List<String> typeNames) {
+            return new Stub(entry, source, typeNames);
+        }
+
+        public String getEntry() {
+            return entry;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public List<String> getTypeNames() {
+            return typeNames;
+        }
+
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static com.apixandru.java.visitors.JpUtils.findFilePath;
+
+/**
+ * Maps the fully qualified name of every top level type to the absolute path of the file declaring it,
+ * without holding on to the parsed compilation units.
+ * <p>
+ * Files inside a source jar have no absolute path of their own, they are keyed by their {@code jar:} URI instead.
+ */
+public class TypeIndex {
+
+    private static final String JAR_SCHEME = "jar:";
+
+    private final Map<String, String> filesByType = new HashMap<>();
+    private final Set<String> files = new HashSet<>();
+
+    public static TypeIndex of(Collection<CompilationUnit> compilationUnits) {
+        TypeIndex index = new TypeIndex();
+        compilationUnits.forEach(index::add);
+        return index;
+    }
+
+    public static List<String> getTypeNames(CompilationUnit compilationUnit) {
+        List<String> typeNames = new ArrayList<>();
+        for (TypeDeclaration<?> type : compilationUnit.getTypes()) {
+            typeNames.add(type.getFullyQualifiedName()
+                    .orElseThrow(() -> new IllegalArgumentException("Missing fully qualified name!")));
+        }
+        return typeNames;
+    }
+
+    public synchronized void add(CompilationUnit compilationUnit) {
+        add(findFilePath(compilationUnit), getTypeNames(compilationUnit));
+    }
+
+    public synchronized void add(String filePath, List<String> typeNames) {
+        files.add(filePath);
+        for (String typeName : typeNames) {
+            String previous = filesByType.put(typeName, filePath);
+            if (previous != null) {
+                throw new IllegalStateException(typeName + " mapped by " + filePath + " was already mapped in " + previous);
+            }
+        }
+    }
+
+    public synchronized void remove(String filePath) {
+        files.remove(filePath);
+        filesByType.values().removeIf(filePath::equals);
+    }
+
+    public synchronized Optional<String> findFile(String typeName) {
+        return Optional.ofNullable(filesByType.get(typeName));
+    }
+
+    public synchronized boolean contains(Path file) {
+        return files.contains(toKey(file));
+    }
+
+    public synchronized Set<String> getFiles() {
+        return new TreeSet<>(files);
+    }
+
+    public synchronized Set<String> getTypeNames() {
+        return new TreeSet<>(filesByType.keySet());
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    public static String toKey(Path file) {
+        if (file.getFileSystem() != FileSystems.getDefault()) {
+            return file.toUri().toString();
+        }
+        return file.toAbsolutePath().toFile().getAbsolutePath();
+    }
+
+    /**
+     * The file a key stands for, the jar of an entry has to be open for its key to be found again.
+     */
+    public static Path toPath(String key) {
+        if (key.startsWith(JAR_SCHEME)) {
+            return Paths.get(URI.create(key));
+        }
+        return Paths.get(key);
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+/**
+ * The bounds of the found types cache of a {@link ParsedTypeSolver}.
+ */
+public final class TypeSolverCacheConfig {
+
+    public static final TypeSolverCacheConfig UNBOUNDED = of(CacheSpec.UNBOUNDED);
+
+    private final CacheSpec foundTypes;
+
+    private TypeSolverCacheConfig(CacheSpec foundTypes) {
+        this.foundTypes = foundTypes;
+    }
+
+    public static TypeSolverCacheConfig of(CacheSpec foundTypes) {
+        return new TypeSolverCacheConfig(foundTypes);
+    }
+
+    public CacheSpec getFoundTypes() {
+        return foundTypes;
+    }
+
+    @Override
+    public String toString() {
+        return "TypeSolverCacheConfig{foundTypes=" + foundTypes + '}';
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The fully qualified names of the top level types of a library, stored segment by segment. Finding the top level
+ * type a name starts with takes one map lookup per segment, the rest of the name being the path to a nested type.
+ */
+public final class TypeTrie {
+
+    private final Segment root = new Segment();
+    private int size;
+
+    public static TypeTrie of(Collection<String> typeNames) {
+        TypeTrie trie = new TypeTrie();
+        typeNames.forEach(trie::add);
+        return trie;
+    }
+
+    private void add(String typeName) {
+        Segment segment = root;
+        for (String name : typeName.split("\\.")) {
+            segment = segment.children.computeIfAbsent(name, key -> new Segment());
+        }
+        if (segment.typeName == null) {
+            segment.typeName = typeName;
+            size++;
+        }
+    }
+
+    /**
+     * @param nameElements a name split on dots, {@code java.util.Map.Entry} for instance
+     * @param from         the first element to look at, so that a package may also be the prefix of a type
+     * @return the top level type found in the name, {@code java.util.Map} here, along with where the rest starts
+     */
+    public Optional<Match> find(String[] nameElements, int from) {
+        Segment segment = root;
+        for (int i = 0; i < nameElements.length; i++) {
+            segment = segment.children.get(nameElements[i]);
+            if (segment == null) {
+                return Optional.empty();
+            }
+            if (segment.typeName != null && i >= from) {
+                return Optional.of(new Match(segment.typeName, i + 1));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static final class Segment {
+
+        private final Map<String, Segment> children = new HashMap<>();
+        private String typeName;
+
+    }
+
+    public static final class Match {
+
+        private final String typeName;
+        private final int end;
+
+        Match(String typeName, int end) {
+            this.typeName = typeName;
+            this.end = end;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        /**
+         * Index of the first name element that is not part of the top level type, the length of the name if none.
+         */
+        public int getEnd() {
+            return end;
+        }
+
+    }
+
+}
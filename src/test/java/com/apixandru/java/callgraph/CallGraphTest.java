@@ -0,0 +1,114 @@
+package com.apixandru.java.callgraph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallGraphTest {
+
+    private static final long SEED = 20_240_611L;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * The graphs are made to hit the corners of the file format: signatures sharing long prefixes or none, prefixes
+     * that end inside a multi-byte character, callee gaps, counts and shared lengths that take one to three bytes,
+     * methods calling nothing and methods calling themselves.
+     */
+    @Test
+    void readsBackGeneratedGraphs() {
+        for (int i = 0; i < 20; i++) {
+            Random random = new Random(SEED + i);
+            CallGraph callGraph = generate(random, 1 + random.nextInt(i % 4 == 3 ? 20_000 : 300));
+            Path file = dir.resolve("graph-" + i + ".jmcg");
+            callGraph.saveAndVerify(file);
+
+            CallGraph loaded = CallGraph.load(file);
+
+            assertThat(loaded.size()).isEqualTo(callGraph.size());
+            assertThat(loaded.getEdgeCount()).isEqualTo(callGraph.getEdgeCount());
+            for (int id = 0; id < callGraph.size(); id++) {
+                assertThat(loaded.getSignature(id)).isEqualTo(callGraph.getSignature(id));
+                assertThat(loaded.getCallees(id)).containsExactly(callGraph.getCallees(id));
+                assertThat(loaded.getCallers(id)).containsExactly(callGraph.getCallers(id));
+            }
+        }
+    }
+
+    @Test
+    void answersCallersAndReachabilityOfALoadedGraph() {
+        String[] signatures = {"a.A.run()", "a.A.stop()", "b.B.put(K, V)", "b.B.putAll(Map)", "c.C.loop()"};
+        // run -> put, putAll; putAll -> put; loop -> loop
+        int[] offsets = {0, 2, 2, 2, 3, 4};
+        int[] callees = {2, 3, 2, 4};
+        Path file = dir.resolve("graph.jmcg");
+        new CallGraph(signatures, offsets, callees).saveAndVerify(file);
+
+        CallGraph callGraph = CallGraph.load(file);
+
+        assertThat(callGraph.findId("b.B.put(K, V)").getAsInt()).isEqualTo(2);
+        assertThat(callGraph.findId("b.B.remove(K)").isPresent()).isFalse();
+        assertThat(callGraph.findByPrefix("b.B.put")).containsExactly(2, 3);
+        assertThat(callGraph.getCallers(2)).containsExactly(0, 3);
+        assertThat(callGraph.getSignatures(callGraph.getTransitiveCallers(2))).containsExactly("a.A.run()", "b.B.putAll(Map)");
+        assertThat(callGraph.isReachable(0, 2)).isTrue();
+        assertThat(callGraph.isReachable(1, 2)).isFalse();
+        assertThat(callGraph.getReachable(4)).isEqualTo(bits(4));
+        assertThat(callGraph.getReachable(3)).isEqualTo(bits(2));
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        Arrays.stream(ids).forEach(bits::set);
+        return bits;
+    }
+
+    static CallGraph generate(Random random, int size) {
+        String[] parts = {"java.util.Map.put(K, V)", "java.util.Map.putAll(",
+                "com.example.Gr\u00f6\u00dfe.\u00e4ndern(", "\u00fc", "\u00e9", "\ud83d\ude00", "a", "zz"};
+        TreeSet<String> unique = new TreeSet<>();
+        while (unique.size() < size) {
+            StringBuilder signature = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                signature.append(parts[random.nextInt(parts.length)]);
+            }
+            if (random.nextInt(50) == 0) {
+                signature.append("x".repeat(200 + random.nextInt(20_000)));
+            }
+            signature.append(unique.size() % 7 == 0 ? "" : unique.size());
+            unique.add(signature.toString());
+        }
+        String[] signatures = unique.toArray(new String[0]);
+
+        int[] offsets = new int[size + 1];
+        int[] callees = new int[16];
+        int count = 0;
+        for (int caller = 0; caller < size; caller++) {
+            int maxDegree = Math.min(size, random.nextInt(10) == 0 ? 2000 : 8);
+            int degree = random.nextInt(4) == 0 ? 0 : random.nextInt(maxDegree + 1);
+            int[] targets = random.ints(degree, 0, size).distinct().sorted().toArray();
+            if (random.nextInt(20) == 0 && Arrays.binarySearch(targets, caller) < 0) {
+                targets = Arrays.copyOf(targets, targets.length + 1);
+                targets[targets.length - 1] = caller;
+                Arrays.sort(targets);
+            }
+            if (count + targets.length > callees.length) {
+                callees = Arrays.copyOf(callees, Math.max(callees.length * 2, count + targets.length));
+            }
+            System.arraycopy(targets, 0, callees, count, targets.length);
+            count += targets.length;
+            offsets[caller + 1] = count;
+        }
+        return new CallGraph(signatures, offsets, Arrays.copyOf(callees, count));
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.apixandru.java.main;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportDependenciesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsTheFilesReferencingATypeOrOneOfItsMembers() throws IOException {
+        File user = report("User.java", "types", "line,col,type", "3,5,java.util.Map.Entry");
+        ReportDependencies dependencies = new ReportDependencies();
+        dependencies.load("User.java", user);
+
+        assertThat(dependencies.findReferencing(List.of("java.util.Map"))).containsExactly("User.java");
+        assertThat(dependencies.findReferencing(List.of("java.util.List"))).isEmpty();
+    }
+
+    @Test
+    void findsTheFilesThatFailedOnTheSimpleNameOfANewType() throws IOException {
+        File failing = report("Failing.java", "types.errors", "line,col,node,error",
+                "3,5,Unresolved symbol Foo<String>,Unsolved symbol : Foo");
+        File qualified = report("Qualified.java", "lines.packages", "line,col,package,type", "4,1,p,p.Bar.Inner");
+        ReportDependencies dependencies = new ReportDependencies();
+        dependencies.load("Failing.java", failing);
+        dependencies.load("Qualified.java", qualified);
+
+        assertThat(dependencies.findReferencing(List.of("p.Foo"))).containsExactly("Failing.java");
+        assertThat(dependencies.findReferencing(List.of("p.Bar", "p.Bar.Inner"))).containsExactly("Qualified.java");
+        assertThat(dependencies.findReferencing(List.of("p.String2"))).isEmpty();
+    }
+
+    @Test
+    void forgetsTheReferencesOfARemovedFile() throws IOException {
+        File failing = report("Failing.java", "lines.errors", "line,col,node,error", "3,5,Cannot resolve Foo.bar(),x");
+        ReportDependencies dependencies = new ReportDependencies();
+        dependencies.load("Failing.java", failing);
+        dependencies.remove("Failing.java");
+
+        assertThat(dependencies.findReferencing(List.of("p.Foo"))).isEmpty();
+    }
+
+    private File report(String sourceFile, String name, String... lines) throws IOException {
+        File fakeOutput = dir.resolve(sourceFile).toFile();
+        Files.write(dir.resolve(sourceFile + "." + name + ".csv"), List.of(lines));
+        return fakeOutput;
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.apixandru.java.main;
+
+import com.apixandru.java.visitors.DelegatingSymbolResolver;
+import com.apixandru.java.visitors.ExtractionContext;
+import com.apixandru.java.visitors.ExtractionEngine;
+import com.apixandru.java.visitors.SplitExtraction;
+import com.apixandru.util.RowWriter;
+import com.apixandru.util.RowWriterFactory;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserStuffImpl;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.PerThreadTypeSolvers;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.TypeSolverCacheConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.apixandru.java.visitors.JpUtils.findPath;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Extracts every file of a generated corpus split in parts and then in a single walk. The split runs first, while
+ * nothing is resolved yet, for its parts to resolve concurrently.
+ */
+class SplitExtractionTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesTheSameRowsSplitAsInASingleWalk() {
+        CorpusGenerator.generate(CorpusSpec.DEFAULT.withSeed(7).withFileCount(40), dir);
+        List<CompilationUnit> compilationUnits = SourceFiles.find(List.of(dir)).parallelStream()
+                .map(path -> new CompilationUnitCallable(path).call())
+                .collect(toList());
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(new JavaParserStuffImpl(compilationUnits), TypeSolverCacheConfig.UNBOUNDED);
+        DelegatingSymbolResolver dsr = new DelegatingSymbolResolver();
+        dsr.setSr(typeSolvers::get);
+        compilationUnits.forEach(dsr::inject);
+
+        try (SplitExtraction extraction = new SplitExtraction(ExtractionEngine.INSTANCE, 0, 4)) {
+            for (CompilationUnit compilationUnit : compilationUnits) {
+                File outputFile = findPath(compilationUnit).toFile();
+                CollectingRowWriterFactory split = new CollectingRowWriterFactory();
+                try (ExtractionContext context = new ExtractionContext(outputFile, split, null)) {
+                    extraction.run(compilationUnit, context);
+                }
+                CollectingRowWriterFactory single = new CollectingRowWriterFactory();
+                try (ExtractionContext context = new ExtractionContext(outputFile, single, null)) {
+                    ExtractionEngine.INSTANCE.run(compilationUnit, context);
+                }
+
+                assertThat(single.getSortedRows()).isNotEmpty();
+                assertThat(split.getSortedRows()).as(outputFile.toString()).isEqualTo(single.getSortedRows());
+            }
+        } finally {
+            dsr.close();
+            typeSolvers.close();
+        }
+    }
+
+    /**
+     * Keeps the rows of every report of a single file as text. The rows of a split file are written in another
+     * order, what is left of the unit first, so they are compared sorted.
+     */
+    private static final class CollectingRowWriterFactory implements RowWriterFactory {
+
+        private final Map<String, List<String>> rows = new TreeMap<>();
+
+        @Override
+        public RowWriter open(File fakeOutput, String name, List<Object> header) {
+            List<String> reportRows = rows.computeIfAbsent(name, key -> new ArrayList<>());
+            return new RowWriter() {
+                @Override
+                public void write(Object[] row) {
+                    reportRows.add(Arrays.toString(row));
+                }
+
+                @Override
+                public void close() {
+                    // kept for the comparison
+                }
+            };
+        }
+
+        Map<String, List<String>> getSortedRows() {
+            Map<String, List<String>> sorted = new TreeMap<>();
+            rows.forEach((name, reportRows) -> {
+                List<String> copy = new ArrayList<>(reportRows);
+                copy.sort(null);
+                sorted.put(name, copy);
+            });
+            return sorted;
+        }
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.apixandru.java.main;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.StubIndex;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StubExtractorTest {
+
+    @Test
+    void keepsPrivateConstructorsWithoutTheirBodies() {
+        String source = "package p;\n"
+                + "public final class Util {\n"
+                + "    private static final int LIMIT = 3;\n"
+                + "    static { System.out.println(); }\n"
+                + "    private Util() { throw new AssertionError(); }\n"
+                + "    public static int twice(int value) { return helper(value) * 2; }\n"
+                + "    private static int helper(int value) { return value; }\n"
+                + "}\n";
+
+        StubIndex.Stub stub = StubExtractor.toStub(Paths.get("src", "p", "Util.java"), StaticJavaParser.parse(source));
+
+        assertThat(stub.getEntry()).isEqualTo("p/Util.java");
+        assertThat(stub.getTypeNames()).containsExactly("p.Util");
+        assertThat(stub.getSource()).contains("private Util() {", "public static int twice(int value) {");
+        assertThat(stub.getSource()).doesNotContain("AssertionError", "helper", "LIMIT", "System.out");
+    }
+
+}
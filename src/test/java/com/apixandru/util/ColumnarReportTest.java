@@ -0,0 +1,126 @@
+package com.apixandru.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnarReportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackTheRowsOfEveryReportWithTheSharedDictionary() {
+        File fakeOutput = dir.resolve("p/Foo.java").toFile();
+        ColumnarRowWriterFactory factory = new ColumnarRowWriterFactory(dir.toString());
+        try (RowWriter types = factory.open(fakeOutput, "types", List.of("line", "col", "type"))) {
+            types.write(new Object[]{3, -1, "java.util.Map"});
+            types.write(new Object[]{Integer.MAX_VALUE, Integer.MIN_VALUE, "p.Gr\u00f6\u00dfe"});
+        }
+        try (RowWriter lines = factory.open(fakeOutput, "lines", List.of("line", "owner"))) {
+            lines.write(new Object[]{7, "java.util.Map"});
+        }
+        factory.close();
+
+        String[] dictionary = ColumnarReport.readDictionary(dir.toFile());
+        ColumnarReport types = ColumnarReport.read(ColumnarReport.getFile(fakeOutput, "types"), dictionary);
+        ColumnarReport lines = ColumnarReport.read(ColumnarReport.getFile(fakeOutput, "lines"), dictionary);
+
+        assertThat(dictionary).hasSize(2);
+        assertThat(types.getHeader()).containsExactly("line", "col", "type");
+        assertThat(rows(types)).containsExactly(
+                List.of("3", "-1", "java.util.Map"),
+                List.of(Integer.toString(Integer.MAX_VALUE), Integer.toString(Integer.MIN_VALUE), "p.Gr\u00f6\u00dfe"));
+        assertThat(types.isNumeric(types.getColumn("col"))).isTrue();
+        assertThat(types.getInt(1, types.getColumn("col"))).isEqualTo(Integer.MIN_VALUE);
+        assertThat(rows(lines)).containsExactly(List.of("7", "java.util.Map"));
+    }
+
+    @Test
+    void rejectsATruncatedReport() throws IOException {
+        File fakeOutput = dir.resolve("Foo.java").toFile();
+        ColumnarRowWriterFactory factory = new ColumnarRowWriterFactory(dir.toString());
+        try (RowWriter types = factory.open(fakeOutput, "types", List.of("line", "type"))) {
+            types.write(new Object[]{300, "Foo"});
+            types.write(new Object[]{1, "Bar"});
+        }
+        factory.close();
+        String[] dictionary = ColumnarReport.readDictionary(dir.toFile());
+        File report = ColumnarReport.getFile(fakeOutput, "types");
+        byte[] bytes = Files.readAllBytes(report.toPath());
+
+        for (int length = 5; length < bytes.length; length++) {
+            Files.write(report.toPath(), Arrays.copyOf(bytes, length));
+            assertThatThrownBy(() -> ColumnarReport.read(report, dictionary))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("not a columnar report");
+        }
+    }
+
+    @Test
+    void rejectsCorruptCountsAndIds() throws IOException {
+        File report = dir.resolve("Foo.java.types.jmc").toFile();
+        String[] dictionary = {"Foo"};
+        byte[][] corruptions = {
+                // a column count of 2^31 - 1
+                body(0xFF, 0xFF, 0xFF, 0xFF, 0x07),
+                // a negative name length
+                body(1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F),
+                // one column named "a" with 2^28 rows
+                body(1, 1, 'a', 0x80, 0x80, 0x80, 0x80, 0x01, ColumnarReport.KIND_STRING, 0),
+                // an unknown kind
+                body(1, 1, 'a', 1, 9, 0),
+                // a string id past the dictionary
+                body(1, 1, 'a', 1, ColumnarReport.KIND_STRING, 1),
+        };
+        for (byte[] corruption : corruptions) {
+            Files.write(report.toPath(), corruption);
+            assertThatThrownBy(() -> ColumnarReport.read(report, dictionary))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("not a columnar report");
+        }
+    }
+
+    @Test
+    void rejectsACorruptDictionary() throws IOException {
+        Path file = dir.resolve(ColumnarReport.DICTIONARY_FILE);
+        Files.write(file, new byte[]{0x4A, 0x4D, 0x43, 0x44, ColumnarReport.VERSION, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F});
+
+        assertThatThrownBy(() -> ColumnarReport.readDictionary(dir.toFile()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not a columnar dictionary");
+    }
+
+    /**
+     * The magic and version of a report followed by the given bytes.
+     */
+    private static byte[] body(int... bytes) {
+        byte[] report = new byte[5 + bytes.length];
+        report[0] = 0x4A;
+        report[1] = 0x4D;
+        report[2] = 0x43;
+        report[3] = 0x52;
+        report[4] = ColumnarReport.VERSION;
+        for (int i = 0; i < bytes.length; i++) {
+            report[5 + i] = (byte) bytes[i];
+        }
+        return report;
+    }
+
+    private static List<List<String>> rows(ColumnarReport report) {
+        List<List<String>> rows = new ArrayList<>();
+        report.forEach(row -> rows.add(List.of(row)));
+        return rows;
+    }
+
+}
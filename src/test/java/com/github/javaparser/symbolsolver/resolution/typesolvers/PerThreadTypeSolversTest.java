@@ -0,0 +1,39 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerThreadTypeSolversTest {
+
+    @Test
+    void givesEveryThreadItsOwnSolver() throws InterruptedException {
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(new JavaParserStuffImpl(List.of()), TypeSolverCacheConfig.UNBOUNDED);
+        TypeSolver mine = typeSolvers.get();
+        AtomicReference<TypeSolver> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(typeSolvers.get()));
+        thread.start();
+        thread.join();
+
+        assertThat(typeSolvers.get()).isSameAs(mine);
+        assertThat(other.get()).isNotSameAs(mine);
+        assertThat(typeSolvers.size()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsTheSolversOfLiveThreadsOnCloseAndKeepsTheirStatistics() {
+        PerThreadTypeSolvers typeSolvers = new PerThreadTypeSolvers(new JavaParserStuffImpl(List.of()), TypeSolverCacheConfig.UNBOUNDED);
+        TypeSolver before = typeSolvers.get();
+
+        typeSolvers.close();
+
+        assertThat(typeSolvers.size()).isEqualTo(0);
+        assertThat(typeSolvers.getCacheStats()).containsOnlyKeys(ParsedTypeSolver.FOUND_TYPES);
+        assertThat(typeSolvers.get()).isNotSameAs(before);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentTypeIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatWasSaved() {
+        Path indexFile = dir.resolve("types.idx");
+        PersistentTypeIndex index = new PersistentTypeIndex("lib");
+        index.put(PersistentTypeIndex.Entry.of(dir.resolve("p/Foo.java"), 10, 20, 30, List.of("p.Foo", "p.Foo.Inner")));
+        index.put(PersistentTypeIndex.Entry.of(dir.resolve("p/Bar.java"), 1, 2, 3, List.of("p.\u00c4rger")));
+        index.save(indexFile);
+
+        PersistentTypeIndex loaded = PersistentTypeIndex.load(indexFile, "lib");
+
+        assertThat(loaded.getEntries()).hasSize(2);
+        PersistentTypeIndex.Entry foo = loaded.get(TypeIndex.toKey(dir.resolve("p/Foo.java"))).get();
+        assertThat(foo.getHash()).isEqualTo(30L);
+        assertThat(foo.getTypeNames()).containsExactly("p.Foo", "p.Foo.Inner");
+        assertThat(loaded.get(TypeIndex.toKey(dir.resolve("p/Bar.java"))).get().getTypeNames()).containsExactly("p.\u00c4rger");
+    }
+
+    @Test
+    void ignoresTheIndexOfAnotherLibrary() {
+        Path indexFile = dir.resolve("types.idx");
+        PersistentTypeIndex index = new PersistentTypeIndex("lib");
+        index.put(PersistentTypeIndex.Entry.of(dir.resolve("Foo.java"), 1, 2, 3, List.of("Foo")));
+        index.save(indexFile);
+
+        assertThat(PersistentTypeIndex.load(indexFile, "other").getEntries()).isEmpty();
+    }
+
+    @Test
+    void ignoresAPartiallyWrittenIndex() throws IOException {
+        Path indexFile = dir.resolve("types.idx");
+        PersistentTypeIndex index = new PersistentTypeIndex("lib");
+        index.put(PersistentTypeIndex.Entry.of(dir.resolve("Foo.java"), 1, 2, 3, List.of("Foo", "Bar")));
+        index.save(indexFile);
+        byte[] bytes = Files.readAllBytes(indexFile);
+
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(indexFile, Arrays.copyOf(bytes, length));
+            assertThat(PersistentTypeIndex.load(indexFile, "lib").getEntries()).isEmpty();
+        }
+    }
+
+    @Test
+    void ignoresCorruptLengths() throws IOException {
+        Path indexFile = dir.resolve("types.idx");
+        int[][] corruptions = {
+                {-1},
+                {Integer.MAX_VALUE},
+                {1, -1},
+                {1, Integer.MAX_VALUE},
+                {1, 0, 0, 0, 0, 0, 0, 0, -5},
+                {1, 0, 0, 0, 0, 0, 0, 0, Integer.MAX_VALUE},
+        };
+        for (int[] corruption : corruptions) {
+            Files.write(indexFile, header(corruption));
+            assertThat(PersistentTypeIndex.load(indexFile, "lib").getEntries()).isEmpty();
+        }
+    }
+
+    @Test
+    void findsEntriesOfFilesThatDidNotChange() throws IOException {
+        Path file = dir.resolve("Foo.java");
+        Files.write(file, "class Foo {}".getBytes(UTF_8));
+        PersistentTypeIndex index = new PersistentTypeIndex("lib");
+        index.put(PersistentTypeIndex.Entry.of(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(),
+                PersistentTypeIndex.hash(file), List.of("Foo")));
+
+        assertThat(index.findUpToDate(file)).isPresent();
+
+        Files.write(file, "class Bar {}".getBytes(UTF_8));
+        assertThat(index.findUpToDate(file)).isEmpty();
+    }
+
+    /**
+     * A valid header for library {@code lib} followed by the given ints, the entry count first.
+     */
+    private static byte[] header(int... ints) {
+        byte[] key = "lib".getBytes(UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 4 + key.length + 4 * ints.length)
+                .putInt(0x4A4D5449)
+                .putInt(1)
+                .putInt(key.length)
+                .put(key);
+        for (int value : ints) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.github.javaparser.symbolsolver.resolution.typesolvers;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StubIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesTheStubOfATypeOnceItIsAskedFor() {
+        Path file = dir.resolve("lib" + StubIndex.EXTENSION);
+        StubIndex.write(file, "lib-1.0", List.of(
+                StubIndex.Stub.of("p/Foo.java", "package p;\npublic class Foo { public void run() {} }\n", List.of("p.Foo")),
+                StubIndex.Stub.of("p/Bar.java", "package p;\nclass Bar {}\nclass Baz {}\n", List.of("p.Bar", "p.Baz"))));
+        List<CompilationUnit> parsed = new ArrayList<>();
+
+        try (StubIndex stubs = StubIndex.open(file, JavaParser::new, parsed::add)) {
+            assertThat(stubs.getKey()).isEqualTo("lib-1.0");
+            assertThat(stubs.getTypeNames()).containsExactlyInAnyOrder("p.Foo", "p.Bar", "p.Baz");
+            assertThat(parsed).isEmpty();
+
+            CompilationUnit baz = stubs.findCompilationUnitByTypeName("p.Baz").get();
+
+            assertThat(baz.getType(1).getNameAsString()).isEqualTo("Baz");
+            assertThat(stubs.findCompilationUnitByTypeName("p.Bar").get()).isSameAs(baz);
+            assertThat(stubs.findCompilationUnit(file.resolve("p/Foo.java")).isPresent()).isTrue();
+            assertThat(stubs.findCompilationUnitByTypeName("p.Missing").isPresent()).isFalse();
+            assertThat(parsed).hasSize(2);
+        }
+    }
+
+    @Test
+    void keepsTheFirstOfTheStubsForTheSameEntry() {
+        Path file = dir.resolve("lib" + StubIndex.EXTENSION);
+
+        int written = StubIndex.write(file, "lib-1.0", List.of(
+                StubIndex.Stub.of("p/Foo.java", "package p;\npublic class Foo {}\n", List.of("p.Foo")),
+                StubIndex.Stub.of("p/Foo.java", "package p;\npublic class Foo { int second; }\n", List.of("p.Foo"))));
+
+        assertThat(written).isEqualTo(1);
+        try (StubIndex stubs = StubIndex.open(file, JavaParser::new, compilationUnit -> {
+        })) {
+            assertThat(stubs.findCompilationUnitByTypeName("p.Foo").get().getType(0).getMembers()).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsATypeListedWithoutItsStub() throws IOException {
+        Path file = dir.resolve("lib" + StubIndex.EXTENSION);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+            out.putNextEntry(new ZipEntry(StubIndex.TYPES_ENTRY));
+            out.write((StubIndex.HEADER + "lib-1.0\np.Foo\n").getBytes(UTF_8));
+            out.closeEntry();
+        }
+
+        assertThatThrownBy(() -> StubIndex.open(file, JavaParser::new, compilationUnit -> {
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("p.Foo");
+    }
+
+    @Test
+    void rejectsAFileThatIsNotAZip() throws IOException {
+        Path file = dir.resolve("lib" + StubIndex.EXTENSION);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write("not a zip".getBytes(UTF_8));
+        }
+
+        assertThatThrownBy(() -> StubIndex.open(file, JavaParser::new, compilationUnit -> {
+        }))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+}